@@ -0,0 +1,50 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.GameEngine;
+import simulation.GameSnapshot;
+import simulation.World;
+
+import java.util.concurrent.TimeUnit;
+
+// A full game tick: scheduled events, disease and vaccine steps, awareness and route eligibility
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+	// Long enough to cover the spread, short enough that the sample is mostly of a running game
+	private static final int TICKS_PER_GAME = 600;
+
+	@Param({"10", "100", "1000"})
+	int countries;
+	@Param({"false", "true"})
+	boolean flowTraffic;
+	World world;
+	GameSnapshot start;
+	GameEngine engine;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		world = Worlds.of(countries);
+		engine = new GameEngine("Medium", 1, world);
+		if (flowTraffic) engine.useFlowTraffic();
+		engine.infectFirstCountry(0);
+		start = engine.snapshot();
+	}
+
+	// Not timed: starts the game over once it is decided or has run for a while
+	@Setup(Level.Invocation)
+	public void restartFinishedGame() {
+		if (engine.getOutcome() != GameEngine.Outcome.RUNNING || engine.getElapsedTicks() >= TICKS_PER_GAME) {
+			engine = GameEngine.restore(start, world);
+		}
+	}
+
+	@Benchmark
+	public GameEngine.Outcome tick() {
+		return engine.tick();
+	}
+}
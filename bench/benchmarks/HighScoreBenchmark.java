@@ -0,0 +1,103 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utilities.HighScoreManager;
+import utilities.HighScoreManager.HighScore;
+import utilities.Leaderboard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Recording a score, both what the caller waits for and the durable append behind it,
+// and the leaderboard operations the high score window and end-of-game dialog use
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighScoreBenchmark {
+	@State(Scope.Thread)
+	public static class Store {
+		Path directory;
+		HighScoreManager manager;
+		SplittableRandom random = new SplittableRandom(1);
+
+		@Setup(Level.Iteration)
+		public void setUp() throws IOException {
+			directory = Files.createTempDirectory("highscores");
+			manager = new HighScoreManager(directory.resolve("highscores.log"));
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() throws IOException {
+			manager.flush();
+			try (var files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Board {
+		@Param({"1000", "1000000"})
+		int size;
+		Leaderboard leaderboard;
+		SplittableRandom random = new SplittableRandom(1);
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			leaderboard = new Leaderboard();
+			for (int i = 0; i < size; i++) {
+				leaderboard.add(score(random));
+			}
+		}
+	}
+
+	private static HighScore score(SplittableRandom random) {
+		return new HighScore("Player", random.nextInt(100_000), HighScoreManager.DIFFICULTIES[random.nextInt(3)], 0);
+	}
+
+	// All the EDT pays: the score is handed to the writer thread. Sampled, because the median is
+	// the hand-off while the occasional flush below shows up only in the top percentiles.
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public CompletableFuture<Integer> addHighScore(Store store) {
+		CompletableFuture<Integer> rank = store.manager.addHighScore("Player", store.random.nextInt(100_000), "Medium");
+		// Keeps the writer's queue from growing without bound over an iteration
+		if ((store.random.nextInt() & 63) == 0) store.manager.flush();
+		return rank;
+	}
+
+	// Until the record is on disk, including the compactions it triggers
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int addHighScoreDurably(Store store) {
+		CompletableFuture<Integer> rank = store.manager.addHighScore("Player", store.random.nextInt(100_000), "Medium");
+		store.manager.flush();
+		return rank.join();
+	}
+
+	@Benchmark
+	public int leaderboardAdd(Board board) {
+		return board.leaderboard.add(score(board.random));
+	}
+
+	@Benchmark
+	public int rankOf(Board board) {
+		return board.leaderboard.rankOf(board.random.nextInt(100_000));
+	}
+
+	@Benchmark
+	public List<HighScore> page(Board board) {
+		return board.leaderboard.getPage(board.random.nextInt(board.size), 50);
+	}
+}
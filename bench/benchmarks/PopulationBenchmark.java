@@ -0,0 +1,70 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.PopulationStore;
+import simulation.World;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// One tick of disease progression and of vaccine rollout over every country
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulationBenchmark {
+	@State(Scope.Thread)
+	public static class Outbreak {
+		@Param({"10", "100", "1000"})
+		int countries;
+		PopulationStore populations;
+
+		// The step is branch-free, so its cost does not depend on how far the outbreak has got
+		@Setup(Level.Trial)
+		public void setUp() {
+			populations = Worlds.populations(Worlds.of(countries));
+			for (int id = 0; id < countries; id++) {
+				populations.importCases(id, 1000);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Rollout {
+		@Param({"10", "100", "1000"})
+		int countries;
+		World world;
+		PopulationStore populations;
+		SplittableRandom random;
+
+		@Setup(Level.Trial)
+		public void loadWorld() {
+			world = Worlds.of(countries);
+		}
+
+		// Every country finishes vaccinating within a few dozen steps, so each call starts over
+		// from the first dose
+		@Setup(Level.Invocation)
+		public void setUp() {
+			populations = Worlds.populations(world);
+			for (int id = 0; id < countries; id++) {
+				populations.importCases(id, 1000);
+				populations.setVaccinated(id, true);
+			}
+			random = new SplittableRandom(countries);
+		}
+	}
+
+	@Benchmark
+	public PopulationStore updateInfection(Outbreak state) {
+		state.populations.updateInfection();
+		return state.populations;
+	}
+
+	@Benchmark
+	public PopulationStore updateVaccination(Rollout state) {
+		state.populations.updateVaccination(state.random);
+		return state.populations;
+	}
+}
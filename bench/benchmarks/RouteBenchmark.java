@@ -0,0 +1,68 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.CountryState;
+import simulation.GameEngine;
+import simulation.PopulationStore;
+import simulation.RouteEligibility;
+import simulation.RouteGraph;
+import simulation.World;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Building the route network for a map, and the per-route and per-tick eligibility checks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteBenchmark {
+	@Param({"10", "100", "1000"})
+	int countries;
+	List<CountryState> countryStates;
+	GameEngine engine;
+	RouteEligibility eligibility;
+	int routeCount;
+	int route = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		World world = Worlds.of(countries);
+		PopulationStore populations = Worlds.populations(world);
+		countryStates = Worlds.countries(world, populations);
+
+		// Part way into an outbreak, so routes are a mix of open and closed
+		engine = new GameEngine("Hard", 1, world);
+		engine.infectFirstCountry(0);
+		for (int tick = 0; tick < 120 && engine.getOutcome() == GameEngine.Outcome.RUNNING; tick++) {
+			engine.tick();
+		}
+		eligibility = engine.getRouteEligibility();
+		routeCount = engine.getRouteGraph().size();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public RouteEligibility initializeRoutes() {
+		RouteGraph routes = RouteGraph.build(countryStates);
+		RouteEligibility built = new RouteEligibility(routes, countryStates);
+		built.isOpen(0);
+		return built;
+	}
+
+	@Benchmark
+	public boolean isRouteOperational() {
+		route = route + 1 == routeCount ? 0 : route + 1;
+		return engine.isRouteOperational(route);
+	}
+
+	// What every tick pays to notice which countries crossed a threshold
+	@Benchmark
+	public RouteEligibility refreshAll() {
+		eligibility.refreshAll();
+		eligibility.isOpen(0);
+		return eligibility;
+	}
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.TransportMode;
+import utilities.SpriteAtlas;
+
+import javax.swing.*;
+import java.util.concurrent.TimeUnit;
+
+// Picking the pre-rotated sprite for a departing vehicle, which replaced rotating its icon per trip.
+// The atlas loads images/ relative to the working directory, so run from the repository root.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SpriteBenchmark {
+	private static final TransportMode[] MODES = TransportMode.values();
+
+	SpriteAtlas atlas;
+	int trip = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		atlas = SpriteAtlas.getInstance();
+	}
+
+	@Benchmark
+	public ImageIcon rotateIcon() {
+		trip++;
+		double angle = trip * 0.37;
+		return atlas.getSprite(MODES[trip % MODES.length], trip % 3, angle);
+	}
+}
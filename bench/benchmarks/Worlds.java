@@ -0,0 +1,49 @@
+package benchmarks;
+
+import simulation.CountryState;
+import simulation.PopulationStore;
+import simulation.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Fixtures shared by the benchmarks. Synthetic worlds are seeded, so every run measures the same map.
+final class Worlds {
+	static final String[] CONTINENTS = {"North America", "South America", "Europe", "Africa", "Asia", "Oceania"};
+	// Same as the engine's
+	static final double INCUBATION_RATE = 1 / 5.0;
+	static final double RECOVERY_RATE = 1 / 60.0;
+
+	private Worlds() {}
+
+	// The shipped map when size is 10, otherwise a map of that many countries scattered over the canvas
+	static World of(int size) {
+		if (size == World.builtIn().size()) return World.builtIn();
+
+		SplittableRandom random = new SplittableRandom(size);
+		World.Builder builder = new World.Builder(size);
+		for (int id = 0; id < size; id++) {
+			builder.add("Country " + id, random.nextInt(1000), random.nextInt(600), CONTINENTS[random.nextInt(CONTINENTS.length)],
+					0.05 + random.nextDouble() * 0.1, 1_000_000 + random.nextLong(300_000_000), 10_000 + random.nextDouble() * 9_000_000);
+		}
+		return builder.build();
+	}
+
+	static PopulationStore populations(World world) {
+		PopulationStore populations = new PopulationStore(world.size());
+		for (int id = 0; id < world.size(); id++) {
+			populations.add(world.getPopulation(id), world.getInfectionRate(id), world.getArea(id), INCUBATION_RATE, RECOVERY_RATE);
+		}
+		populations.setTransmissionRate(1.1);
+		return populations;
+	}
+
+	static List<CountryState> countries(World world, PopulationStore populations) {
+		List<CountryState> countries = new ArrayList<>(world.size());
+		for (int id = 0; id < world.size(); id++) {
+			countries.add(new CountryState(id, populations, world.getName(id), world.getX(id), world.getY(id), world.getContinent(id)));
+		}
+		return countries;
+	}
+}
@@ -0,0 +1,11 @@
+#!/bin/sh
+# Starts the game from the packaged jar, mapping the class-data archive from `mvn -P cds package`
+# when there is one. The archive only matches the jar it was dumped with; the JVM ignores a stale one.
+cd "$(dirname "$0")" || exit 1
+JAR=target/antiplague-1.0-SNAPSHOT.jar
+ARCHIVE=target/antiplague.jsa
+
+if [ -f "$ARCHIVE" ]; then
+	exec java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -jar "$JAR" "$@"
+fi
+exec java -jar "$JAR" "$@"
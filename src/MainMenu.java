@@ -1,10 +1,20 @@
+import simulation.BatchRunner;
+import simulation.ReplayRunner;
+import simulation.SessionHost;
+import utilities.AutoSaver;
 import utilities.HighScoreManager;
+import utilities.Startup;
 import windows.DifficultySelectionDialog;
+import windows.GameWindow;
 import windows.HighScoresWindow;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class MainMenu extends JFrame {
 	private final HighScoreManager highScoreManager;
@@ -28,15 +38,21 @@ public class MainMenu extends JFrame {
 		gbc.gridy = 0;
 		buttonPanel.add(newGameButton, gbc);
 
-		JButton highScoresButton = createMenuButton("High Scores");
+		JButton continueButton = createMenuButton("Continue");
+		continueButton.setEnabled(AutoSaver.hasSave());
 		gbc.gridy = 1;
+		buttonPanel.add(continueButton, gbc);
+
+		JButton highScoresButton = createMenuButton("High Scores");
+		gbc.gridy = 2;
 		buttonPanel.add(highScoresButton, gbc);
 
 		JButton exitButton = createMenuButton("Exit");
-		gbc.gridy = 2;
+		gbc.gridy = 3;
 		buttonPanel.add(exitButton, gbc);
 
 		newGameButton.addActionListener(e -> startNewGame());
+		continueButton.addActionListener(e -> continueGame());
 		highScoresButton.addActionListener(e -> showHighScores());
 		exitButton.addActionListener(e -> System.exit(0));
 
@@ -46,10 +62,23 @@ public class MainMenu extends JFrame {
 		titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
 		add(titleLabel, BorderLayout.NORTH);
 
-		setPreferredSize(new Dimension(400, 300));
+		setPreferredSize(new Dimension(400, 370));
 		pack();
 		setLocationRelativeTo(null);
 
+		// A game may have been saved or finished since the menu was last shown
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowActivated(WindowEvent e) {
+				continueButton.setEnabled(AutoSaver.hasSave());
+			}
+
+			@Override
+			public void windowOpened(WindowEvent e) {
+				Startup.getInstance().menuShown();
+			}
+		});
+
 		addKeyBindings();
 	}
 
@@ -67,6 +96,10 @@ public class MainMenu extends JFrame {
 		dialog.setVisible(true);
 	}
 
+	private void continueGame() {
+		GameWindow.open(this, Startup.getInstance().continueGame(AutoSaver.AUTOSAVE_FILE));
+	}
+
 	private void showHighScores() {
 		HighScoresWindow highScoresWindow = new HighScoresWindow(this, highScoreManager);
 		highScoresWindow.refreshHighScores();
@@ -89,7 +122,30 @@ public class MainMenu extends JFrame {
 		});
 	}
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException, IOException, ClassNotFoundException {
+		if (args.length > 0 && args[0].equals("--batch")) {
+			BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--replay")) {
+			ReplayRunner.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--host")) {
+			SessionHost.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--startup-check")) {
+			Startup.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--startup-warmup")) {
+			Startup.warmUp();
+			return;
+		}
+
+		// The world, routes and sprites load in the background while Swing starts and the menu is up
+		Startup.getInstance();
 		SwingUtilities.invokeLater(() -> {
 			MainMenu mainMenu = new MainMenu();
 			mainMenu.setVisible(true);
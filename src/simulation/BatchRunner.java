@@ -0,0 +1,269 @@
+package simulation;
+
+import utilities.Upgrade;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+public class BatchRunner {
+	private static final String USAGE = String.join("\n",
+			"Usage: --batch [options]",
+			"  --runs N            games per difficulty (default 1000)",
+			"  --difficulty NAME   Easy, Medium, Hard or All (default All)",
+			"  --seed S            base seed; the same seed reproduces the same report (default 1)",
+			"  --max-time SECONDS  game time after which a run counts as unresolved (default 7200)",
+			"  --threads T         worker threads (default: all cores)",
+			"  --world FILE        world CSV to simulate (default worlds/default.csv)",
+			"  --grid WxH          simulate each country as a grid of cells, e.g. 1000x500",
+			"  --flow              spread infection by passenger flows on every route instead of single transports",
+			"  --idle              no player actions; by default pickups are collected and upgrades bought");
+
+	// Purchase order for the autopilot; "Cancel Mutation" is the only upgrade bought more than once
+	private static final List<String> AUTOPILOT_UPGRADES = List.of(
+			"Vaccine Distribution", "Sanitation Protocols", "Vaccine Distribution Networks", "Cancel Mutation");
+	// Salts the run seed for the first country, so the choice does not use up tick 0's random stream
+	private static final long FIRST_COUNTRY_SALT = 0xC2B2AE3D27D4EB4FL;
+
+	private final int runs;
+	private final long seed;
+	private final long maxTicks;
+	private final int threads;
+	private final boolean autopilot;
+	private final World world;
+	private final int gridWidth;
+	private final int gridHeight;
+	private final boolean flowTraffic;
+
+	public BatchRunner(int runs, long seed, long maxTicks, int threads, boolean autopilot, World world, int gridWidth, int gridHeight, boolean flowTraffic) {
+		this.runs = runs;
+		this.seed = seed;
+		this.maxTicks = maxTicks;
+		this.threads = threads;
+		this.autopilot = autopilot;
+		this.world = world;
+		this.gridWidth = gridWidth;
+		this.gridHeight = gridHeight;
+		this.flowTraffic = flowTraffic;
+	}
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		int runs = 1000;
+		long seed = 1;
+		long maxTicks = 7200;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean autopilot = true;
+		Path worldPath = null;
+		int gridWidth = 0;
+		int gridHeight = 0;
+		boolean flowTraffic = false;
+		List<String> difficulties = List.of("Easy", "Medium", "Hard");
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--runs" -> runs = Integer.parseInt(args[++i]);
+					case "--seed" -> seed = Long.parseLong(args[++i]);
+					case "--max-time" -> maxTicks = Long.parseLong(args[++i]) * 1000 / GameEngine.TICK_MILLIS;
+					case "--threads" -> threads = Integer.parseInt(args[++i]);
+					case "--idle" -> autopilot = false;
+					case "--flow" -> flowTraffic = true;
+					case "--world" -> worldPath = Paths.get(args[++i]);
+					case "--grid" -> {
+						String[] size = args[++i].toLowerCase().split("x");
+						gridWidth = Integer.parseInt(size[0]);
+						gridHeight = Integer.parseInt(size[1]);
+					}
+					case "--difficulty" -> {
+						String difficulty = args[++i];
+						if (!difficulty.equalsIgnoreCase("All")) difficulties = List.of(difficulty);
+					}
+					default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		World world = worldPath == null ? World.loadDefault() : World.load(worldPath);
+		BatchRunner runner = new BatchRunner(runs, seed, maxTicks, threads, autopilot, world, gridWidth, gridHeight, flowTraffic);
+		for (String difficulty : difficulties) {
+			System.out.println(runner.run(difficulty).format());
+		}
+	}
+
+	public Report run(String difficulty) throws InterruptedException {
+		// Seeds are drawn up front so the report does not depend on thread scheduling
+		SplittableRandom seeds = new SplittableRandom(seed);
+		long[] runSeeds = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			runSeeds[i] = seeds.nextLong();
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long startNanos = System.nanoTime();
+		try {
+			List<Future<RunResult>> futures = new ArrayList<>(runs);
+			for (long runSeed : runSeeds) {
+				futures.add(pool.submit(() -> runGame(difficulty, runSeed)));
+			}
+
+			RunResult[] results = new RunResult[runs];
+			for (int i = 0; i < runs; i++) {
+				results[i] = futures.get(i).get();
+			}
+			return new Report(difficulty, seed, autopilot, results, System.nanoTime() - startNanos);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Batch run failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	public RunResult runGame(String difficulty, long runSeed) {
+		GameEngine engine = new GameEngine(difficulty, runSeed, world);
+		if (gridWidth > 0) engine.useGrid(gridWidth, gridHeight);
+		if (flowTraffic) engine.useFlowTraffic();
+
+		Consumer<GameEngine> player = autopilot ? autopilot(engine) : null;
+		engine.infectFirstCountry(firstCountry(engine));
+
+		GameEngine.Outcome outcome = GameEngine.Outcome.RUNNING;
+		while (outcome == GameEngine.Outcome.RUNNING && engine.getElapsedTicks() < maxTicks) {
+			if (player != null) player.accept(engine);
+			outcome = engine.tick();
+		}
+		return result(engine);
+	}
+
+	// Collects every pickup as it spawns; the returned player buys upgrades and is meant to be
+	// called before every tick. Shared with SessionHost so hosted games play the same way.
+	static Consumer<GameEngine> autopilot(GameEngine engine) {
+		engine.setListener(new GameEngine.Listener() {
+			@Override
+			public void onPickupSpawned(Pickup pickup) {
+				engine.collectPickup(pickup.getId());
+			}
+		});
+		boolean[] purchased = new boolean[engine.getUpgrades().size()];
+		return game -> buyUpgrades(game, purchased);
+	}
+
+	// Where a simulated player starts the outbreak; also shared with SessionHost
+	static int firstCountry(GameEngine engine) {
+		return new SplittableRandom(engine.getSeed() ^ FIRST_COUNTRY_SALT).nextInt(engine.getCountries().size());
+	}
+
+	static RunResult result(GameEngine engine) {
+		double peakInfection = engine.getPeakInfected() / engine.getPopulations().sumTotal() * 100;
+		return new RunResult(engine.getOutcome(), engine.getElapsedMillis() / 1000, peakInfection);
+	}
+
+	private static void buyUpgrades(GameEngine engine, boolean[] purchased) {
+		List<Upgrade> upgrades = engine.getUpgrades();
+		for (String name : AUTOPILOT_UPGRADES) {
+			for (int i = 0; i < upgrades.size(); i++) {
+				Upgrade upgrade = upgrades.get(i);
+				if (!upgrade.getName().equals(name)) continue;
+
+				boolean repeatable = name.equals("Cancel Mutation");
+				if (purchased[i] && !repeatable) break;
+				if (engine.getPoints() < upgrade.getCost()) return;
+
+				engine.purchaseUpgrade(upgrade);
+				purchased[i] = true;
+				break;
+			}
+		}
+	}
+
+	public static class RunResult {
+		private final GameEngine.Outcome outcome;
+		private final long seconds;
+		private final double peakInfection;
+
+		public RunResult(GameEngine.Outcome outcome, long seconds, double peakInfection) {
+			this.outcome = outcome;
+			this.seconds = seconds;
+			this.peakInfection = peakInfection;
+		}
+
+		public GameEngine.Outcome getOutcome() {
+			return outcome;
+		}
+
+		public long getSeconds() {
+			return seconds;
+		}
+
+		public double getPeakInfection() {
+			return peakInfection;
+		}
+	}
+
+	public static class Report {
+		private final String difficulty;
+		private final long seed;
+		private final boolean autopilot;
+		private final RunResult[] results;
+		private final long wallNanos;
+
+		public Report(String difficulty, long seed, boolean autopilot, RunResult[] results, long wallNanos) {
+			this.difficulty = difficulty;
+			this.seed = seed;
+			this.autopilot = autopilot;
+			this.results = results;
+			this.wallNanos = wallNanos;
+		}
+
+		public double getRate(GameEngine.Outcome outcome) {
+			if (results.length == 0) return 0;
+			return 100.0 * Arrays.stream(results).filter(r -> r.getOutcome() == outcome).count() / results.length;
+		}
+
+		public String format() {
+			double[] endTimes = Arrays.stream(results)
+					.filter(r -> r.getOutcome() != GameEngine.Outcome.RUNNING)
+					.mapToDouble(RunResult::getSeconds)
+					.sorted()
+					.toArray();
+			double[] peaks = Arrays.stream(results).mapToDouble(RunResult::getPeakInfection).sorted().toArray();
+
+			return String.format(
+					"%s: %d runs, seed %d, %s, %.1fs wall%n" +
+					"  Outcome        victory %.1f%%  defeat %.1f%%  unresolved %.1f%%%n" +
+					"  Time to end    %s%n" +
+					"  Peak infected  %s%n",
+					difficulty, results.length, seed, autopilot ? "autopilot" : "idle", wallNanos / 1e9,
+					getRate(GameEngine.Outcome.VICTORY), getRate(GameEngine.Outcome.DEFEAT), getRate(GameEngine.Outcome.RUNNING),
+					distribution(endTimes, "%.0fs"),
+					distribution(peaks, "%.1f%%")
+			);
+		}
+
+		private static String distribution(double[] sorted, String format) {
+			if (sorted.length == 0) return "n/a";
+
+			double mean = Arrays.stream(sorted).average().orElse(0);
+			return String.format("mean " + format + "  p10 " + format + "  p50 " + format + "  p90 " + format + "  max " + format,
+					mean, percentile(sorted, 10), percentile(sorted, 50), percentile(sorted, 90), sorted[sorted.length - 1]);
+		}
+
+		private static double percentile(double[] sorted, int percentile) {
+			int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package simulation;
+
+public class CountryState {
+	private final int id;
+	private final PopulationStore populations;
+	private final String name;
+	private final String continent;
+	private final int x;
+	private final int y;
+
+	public CountryState(int id, PopulationStore populations, String name, int x, int y, String continent) {
+		this.id = id;
+		this.populations = populations;
+		this.name = name;
+		this.continent = continent;
+		this.x = x;
+		this.y = y;
+	}
+
+	public void setInfected(boolean infected) {
+		populations.setInfected(id, infected);
+	}
+
+	public void setVaccinated(boolean vaccinated) {
+		populations.setVaccinated(id, vaccinated);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public boolean isInfected() {
+		return populations.isInfected(id);
+	}
+
+	public boolean isVaccinated() {
+		return populations.isVaccinated(id);
+	}
+
+	public double getTransmissionRate() {
+		return populations.getBeta(id);
+	}
+
+	public double getIncubationRate() {
+		return populations.getSigma(id);
+	}
+
+	public double getRecoveryRate() {
+		return populations.getGamma(id);
+	}
+
+	public double getPopulationDensity() {
+		return populations.getNormal(id) / populations.getArea(id);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getContinent() {
+		return continent;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public long getNormalPopulation() {
+		return populations.getNormal(id);
+	}
+
+	public long getExposedPopulation() {
+		return populations.getExposed(id);
+	}
+
+	public long getInfectedPopulation() {
+		return populations.getInfected(id);
+	}
+
+	public long getRecoveredPopulation() {
+		return populations.getRecovered(id);
+	}
+
+	public long getVaccinatedPopulation() {
+		return populations.getVaccinated(id);
+	}
+
+	public long getTotalPopulation() {
+		return populations.getTotal(id);
+	}
+}
@@ -0,0 +1,678 @@
+package simulation;
+
+import utilities.TimingWheel;
+import utilities.Upgrade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class GameEngine {
+	public static final long TICK_MILLIS = 1000;
+	private static final long PICKUP_LIFETIME_MILLIS = 10000;
+	private static final double TRIP_MILLIS_PER_PIXEL = 20;
+	// SEIR rates per tick: about five seconds of incubation and a minute of infection
+	private static final double INCUBATION_RATE = 1 / 5.0;
+	private static final double RECOVERY_RATE = 1 / 60.0;
+	// Share of the world that has caught the virus at which the game is lost
+	public static final double DEFEAT_SHARE = 0.5;
+	// Global awareness at which routes close unless vaccine delivery is prioritised
+	private static final int AWARENESS_LOCKDOWN = 80;
+	// Odd constant that spreads consecutive tick numbers across the seed space
+	private static final long TICK_SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final String difficulty;
+	private final long seed;
+	private SplittableRandom random;
+	private final PopulationStore populations;
+	private final double worldPopulation;
+	private final List<CountryState> countries;
+	private final RouteGraph routes;
+	private final RouteEligibility eligibility;
+	private final boolean[] routeInFlight;
+	private final List<Upgrade> upgrades;
+	private GridModel grid;
+	private TrafficModel traffic;
+	private final Map<Integer, Pickup> pickups = new LinkedHashMap<>();
+	private final Map<Integer, Trip> trips = new LinkedHashMap<>();
+	private final TimingWheel events = new TimingWheel(512, 100);
+	private Listener listener = new Listener() {};
+	private double infectionRate;
+	private int globalAwareness = 0;
+	private int laboratoryCount = 0;
+	private int vaccineProgress = 0;
+	private int score = 0;
+	private int points = 0;
+	private int nextPickupId = 0;
+	private double sanitationEffect = 1.0;
+	private boolean vaccineDistribution = false;
+	private boolean infectionStarted = false;
+	private long elapsedMillis = 0;
+	private long elapsedTicks = 0;
+	private long peakInfected = 0;
+	private Outcome outcome = Outcome.RUNNING;
+
+	public GameEngine(String difficulty) {
+		this(difficulty, new SplittableRandom().nextLong());
+	}
+
+	public GameEngine(String difficulty, long seed) {
+		this(difficulty, seed, World.loadDefault());
+	}
+
+	public GameEngine(String difficulty, long seed, World world) {
+		this(difficulty, seed, world, RouteGraph.build(world));
+	}
+
+	// With routes built ahead of time for the same world; the graph is read-only and can be shared
+	public GameEngine(String difficulty, long seed, World world, RouteGraph routes) {
+		if (routes.getCountryCount() != world.size()) {
+			throw new IllegalArgumentException("Route graph was built for a different world");
+		}
+		this.difficulty = difficulty;
+		this.seed = seed;
+		this.random = tickRandom(seed, 0);
+		this.infectionRate = baseInfectionRate(difficulty);
+		this.populations = new PopulationStore(world.size());
+		this.countries = initializeCountries(world);
+		this.worldPopulation = populations.sumTotal();
+		populations.setTransmissionRate(infectionRate);
+		this.routes = routes;
+		this.routeInFlight = new boolean[routes.size()];
+		this.eligibility = new RouteEligibility(routes, countries);
+		this.upgrades = initializeUpgrades();
+	}
+
+	// Each tick draws from a generator derived from the seed and the tick number alone, so the
+	// random stream never depends on how often the game was saved or when a player acted
+	private static SplittableRandom tickRandom(long seed, long tick) {
+		return new SplittableRandom(new SplittableRandom(seed ^ tick * TICK_SEED_GAMMA).nextLong());
+	}
+
+	public static double baseInfectionRate(String difficulty) {
+		return switch (difficulty) {
+			case "Easy" -> 1;
+			case "Medium" -> 1.1;
+			case "Hard" -> 1.2;
+			default -> 0;
+		};
+	}
+
+	private List<CountryState> initializeCountries(World world) {
+		List<CountryState> countryList = new ArrayList<>(world.size());
+
+		for (int i = 0; i < world.size(); i++) {
+			int id = populations.add(world.getPopulation(i), world.getInfectionRate(i), world.getArea(i), INCUBATION_RATE, RECOVERY_RATE);
+			countryList.add(new CountryState(id, populations, world.getName(i), world.getX(i), world.getY(i), world.getContinent(i)));
+		}
+
+		return countryList;
+	}
+
+	private List<Upgrade> initializeUpgrades() {
+		List<Upgrade> upgradeList = new ArrayList<>();
+
+		upgradeList.add(new Upgrade("Vaccine Research", 10, "Adds +5% to vaccine development.", () -> {
+			advanceVaccineResearch(5);
+			return "Vaccine research progressed by +5%.";
+		}));
+
+		upgradeList.add(new Upgrade("Build Laboratory", 25, "Adds a laboratory that increases vaccine progress over time.", () -> {
+			laboratoryCount++;
+			return "Laboratory built! Vaccine progress will now increase over time.";
+		}));
+
+		upgradeList.add(new Upgrade("Vaccine Distribution", 40, "Enable vaccine distribution via transport.", () -> {
+			vaccineDistribution = true;
+			return "Vaccine distribution via transport enabled.";
+		}));
+
+		upgradeList.add(new Upgrade("Cancel Mutation", 30, "Decreases the infection rate by 0.03.", () -> {
+			if (infectionRate > 0.5) {
+				setInfectionRate(infectionRate - 0.3);
+				return "Mutation canceled! Infection rate decreased by 1%.";
+			}
+			return "Infection rate is already at the minimum!";
+		}));
+
+		upgradeList.add(new Upgrade("Sanitation Protocols", 50, "Reduce infection spread during transport by 50%.", () -> {
+			sanitationEffect = 0.5;
+			return "Sanitation Protocols Activated! Infection probability during transport reduced by 50%.";
+		}));
+
+		upgradeList.add(new Upgrade("Rapid Testing", 20, "Reopen transport routes faster after infection levels drop.", () -> {
+			eligibility.setRapidTesting(true);
+			return "Rapid Testing Deployed! Transport routes will reopen faster after infection drops.";
+		}));
+
+		upgradeList.add(new Upgrade("Infection-Free Zones", 25, "Keep routes between infection-free countries open.", () -> {
+			eligibility.setInfectionFreeZones(true);
+			return "Infection-Free Zone protocols established. Routes between infection-free countries will remain open.";
+		}));
+
+		upgradeList.add(new Upgrade("Vaccine Distribution Networks", 50, "Prioritize vaccine delivery routes.", () -> {
+			eligibility.setVaccinePriority(true);
+			return "Vaccine Distribution Networks established. Vaccine delivery routes will be prioritized.";
+		}));
+
+		upgradeList.add(new Upgrade("Media Campaign", 20, "Delay route closures by calming public fears.", () -> {
+			adjustGlobalAwareness(-30);
+			return "Media Campaign launched. Public awareness lowered, delaying potential route closures.";
+		}));
+
+		return upgradeList;
+	}
+
+	// Switches to the sub-national grid model; call before the infection starts
+	public void useGrid(int width, int height) {
+		grid = new GridModel(width, height, countries, populations);
+	}
+
+	public GridModel getGrid() {
+		return grid;
+	}
+
+	// Replaces the infection carried by single random transports with passenger flows on every route
+	public void useFlowTraffic() {
+		traffic = new TrafficModel(routes, countries);
+	}
+
+	public TrafficModel getTraffic() {
+		return traffic;
+	}
+
+	public void infectFirstCountry(int countryId) {
+		countries.get(countryId).setInfected(true);
+		startInfection();
+	}
+
+	public void startInfection() {
+		if (infectionStarted) return;
+		infectionStarted = true;
+		// The first countries are flagged directly on their CountryState
+		eligibility.refreshAll();
+
+		schedule(GameSnapshot.MUTATION, 0, elapsedMillis + 30000, 30000);
+		schedule(GameSnapshot.LABORATORIES, 0, elapsedMillis + 7000, 7000);
+		schedule(GameSnapshot.PICKUP_SPAWN, 0, elapsedMillis + 8000, 8000);
+		schedule(GameSnapshot.DISPATCH, 0, elapsedMillis + 3000, 2000);
+		schedule(GameSnapshot.VACCINE_DISPATCH, 0, elapsedMillis + 7000, 7000);
+	}
+
+	private void schedule(byte kind, int key, long deadline, long period) {
+		events.schedule(new EngineEvent(kind, key), deadline, period);
+	}
+
+	public Outcome tick() {
+		if (outcome != Outcome.RUNNING) return outcome;
+		random = tickRandom(seed, elapsedTicks);
+		elapsedMillis += TICK_MILLIS;
+		elapsedTicks++;
+
+		events.advanceTo(elapsedMillis);
+		if (traffic != null && infectionStarted) importTravellers();
+
+		if (grid != null) {
+			grid.update(populations);
+		} else {
+			populations.updateInfection();
+		}
+		populations.updateVaccination(random);
+
+		updateGlobalAwareness();
+		eligibility.refreshAll();
+		outcome = evaluateOutcome();
+		return outcome;
+	}
+
+	private void importTravellers() {
+		double[] imported = traffic.sample(countries, eligibility, sanitationEffect, random);
+		for (int id = 0; id < imported.length; id++) {
+			if (imported[id] == 0) continue;
+
+			CountryState country = countries.get(id);
+			populations.importCases(id, imported[id]);
+			if (!country.isInfected()) {
+				country.setInfected(true);
+				listener.onInfectionSpread(country);
+			}
+			eligibility.refresh(id);
+		}
+	}
+
+	private void updateGlobalAwareness() {
+		double totalInfected = populations.sumInfected();
+		double totalPopulation = populations.sumNormal();
+		peakInfected = Math.max(peakInfected, Math.round(totalInfected));
+
+		int newAwareness = (int) (totalInfected / totalPopulation * 100);
+		adjustGlobalAwareness(newAwareness - globalAwareness);
+	}
+
+	private Outcome evaluateOutcome() {
+		if (!infectionStarted) return Outcome.RUNNING;
+
+		if (populations.sumReached() >= worldPopulation * DEFEAT_SHARE) return Outcome.DEFEAT;
+		if (!populations.hasInfections()) return Outcome.VICTORY;
+		return Outcome.RUNNING;
+	}
+
+	public void mutate() {
+		setInfectionRate(infectionRate + 0.01);
+	}
+
+	private void mutateAndNotify() {
+		mutate();
+		listener.onMutation();
+	}
+
+	private void setInfectionRate(double infectionRate) {
+		this.infectionRate = infectionRate;
+		populations.setTransmissionRate(infectionRate);
+	}
+
+	public void progressLaboratories() {
+		advanceVaccineResearch(laboratoryCount);
+	}
+
+	public void advanceVaccineResearch(int percent) {
+		vaccineProgress = Math.min(vaccineProgress + percent, 100);
+	}
+
+	private void spawnPickup() {
+		CountryState country = countries.get(random.nextInt(countries.size()));
+		int offsetX = (int) (random.nextDouble() * 50 - 25);
+		int offsetY = (int) (random.nextDouble() * 50 - 25);
+		boolean isInfected = country.isInfected();
+		int pointsEarned = isInfected ? 5 : 10;
+
+		Pickup pickup = new Pickup(nextPickupId++, country, isInfected, pointsEarned, offsetX, offsetY, elapsedMillis + PICKUP_LIFETIME_MILLIS);
+		pickups.put(pickup.getId(), pickup);
+		schedule(GameSnapshot.PICKUP_EXPIRY, pickup.getId(), pickup.getExpiresAtMillis(), 0);
+		listener.onPickupSpawned(pickup);
+	}
+
+	private void expirePickup(int pickupId) {
+		Pickup pickup = pickups.remove(pickupId);
+		if (pickup != null) listener.onPickupExpired(pickup);
+	}
+
+	public boolean collectPickup(int pickupId) {
+		Pickup pickup = pickups.remove(pickupId);
+		if (pickup == null) return false;
+
+		score += pickup.getPoints();
+		points += pickup.getPoints();
+		return true;
+	}
+
+	public String purchaseUpgrade(Upgrade upgrade) {
+		if (points < upgrade.getCost()) return null;
+
+		points -= upgrade.getCost();
+		return upgrade.getEffect().apply();
+	}
+
+	private void dispatchTransport(boolean forVaccine) {
+		if (routes.size() == 0) return;
+
+		int routeId = random.nextInt(routes.size());
+		if (routeInFlight[routeId] || !isRouteOperational(routeId)) return;
+
+		Route route = getRoute(routeId);
+		CountryState origin = route.getOrigin();
+		boolean isInfected;
+		if (traffic != null) {
+			// The flow pass already imported the cases; the trip only shows whether this route carried any
+			isInfected = traffic.carriedInfection(routeId);
+		} else {
+			double infectionProbability = (double) origin.getInfectedPopulation() / origin.getNormalPopulation() * sanitationEffect;
+			isInfected = random.nextDouble() < infectionProbability;
+		}
+
+		long arrivalMillis = elapsedMillis + Math.max(1, (long) (route.getDistance() * TRIP_MILLIS_PER_PIXEL));
+		Trip trip = new Trip(route, forVaccine, isInfected, elapsedMillis, arrivalMillis);
+		routeInFlight[routeId] = true;
+		trips.put(routeId, trip);
+		schedule(GameSnapshot.TRIP_ARRIVAL, routeId, arrivalMillis, 0);
+		listener.onTripStarted(trip);
+	}
+
+	private void completeTrip(int routeId) {
+		Trip trip = trips.remove(routeId);
+		routeInFlight[routeId] = false;
+
+		if (trip.isForVaccine()) {
+			spreadVaccine(trip.getRoute());
+		} else if (trip.isInfected() && traffic == null) {
+			spreadInfection(trip.getRoute());
+		}
+	}
+
+	private void spreadInfection(Route route) {
+		CountryState destination = route.getDestination();
+		if (route.getOrigin().isInfected() && !destination.isInfected()) {
+			destination.setInfected(true);
+			if (grid == null) populations.updateInfection(destination.getId());
+			eligibility.refresh(destination.getId());
+			listener.onInfectionSpread(destination);
+		}
+	}
+
+	private void spreadVaccine(Route route) {
+		CountryState destination = route.getDestination();
+		if (!destination.isVaccinated()) {
+			destination.setVaccinated(true);
+			populations.updateVaccination(destination.getId(), random);
+			eligibility.refresh(destination.getId());
+			listener.onVaccineSpread(destination);
+		}
+	}
+
+	public boolean isRouteOperational(int routeId) {
+		return eligibility.isOpen(routeId);
+	}
+
+	public RouteEligibility getRouteEligibility() {
+		return eligibility;
+	}
+
+	// Must run on the thread that ticks the engine, between two ticks
+	public GameSnapshot snapshot() {
+		GameSnapshot.Builder snapshot = new GameSnapshot.Builder();
+		snapshot.difficulty = difficulty;
+		snapshot.seed = seed;
+		snapshot.worldHash = worldHash(countries);
+		snapshot.elapsedMillis = elapsedMillis;
+		snapshot.elapsedTicks = elapsedTicks;
+		snapshot.peakInfected = peakInfected;
+		snapshot.infectionStarted = infectionStarted;
+		snapshot.outcome = outcome;
+		snapshot.infectionRate = infectionRate;
+		snapshot.sanitationEffect = sanitationEffect;
+		snapshot.globalAwareness = globalAwareness;
+		snapshot.laboratoryCount = laboratoryCount;
+		snapshot.vaccineProgress = vaccineProgress;
+		snapshot.score = score;
+		snapshot.points = points;
+		snapshot.nextPickupId = nextPickupId;
+		snapshot.vaccineDistribution = vaccineDistribution;
+		snapshot.infectionFreeZones = eligibility.isInfectionFreeZones();
+		snapshot.rapidTesting = eligibility.isRapidTesting();
+		snapshot.vaccinePriority = eligibility.isVaccinePriority();
+		snapshot.flowTraffic = traffic != null;
+		snapshot.gridWidth = grid == null ? 0 : grid.getWidth();
+		snapshot.gridHeight = grid == null ? 0 : grid.getHeight();
+		populations.copyTo(snapshot);
+
+		snapshot.pickups(pickups.size());
+		int p = 0;
+		for (Pickup pickup : pickups.values()) {
+			snapshot.pickupIds[p] = pickup.getId();
+			snapshot.pickupCountries[p] = pickup.getCountry().getId();
+			snapshot.pickupInfected[p] = pickup.isInfectedCountry();
+			snapshot.pickupPoints[p] = pickup.getPoints();
+			snapshot.pickupOffsetX[p] = pickup.getOffsetX();
+			snapshot.pickupOffsetY[p] = pickup.getOffsetY();
+			snapshot.pickupExpiresAt[p] = pickup.getExpiresAtMillis();
+			p++;
+		}
+
+		snapshot.trips(trips.size());
+		int t = 0;
+		for (Trip trip : trips.values()) {
+			snapshot.tripRoutes[t] = trip.getRoute().getId();
+			snapshot.tripForVaccine[t] = trip.isForVaccine();
+			snapshot.tripInfected[t] = trip.isInfected();
+			snapshot.tripDepartures[t] = trip.getDepartureMillis();
+			snapshot.tripArrivals[t] = trip.getArrivalMillis();
+			t++;
+		}
+
+		snapshot.events(events.size());
+		int[] count = {0};
+		events.forEach(timeout -> {
+			EngineEvent event = (EngineEvent) timeout.getTask();
+			int e = count[0]++;
+			snapshot.eventKinds[e] = event.kind;
+			snapshot.eventKeys[e] = event.key;
+			snapshot.eventDeadlines[e] = timeout.getDeadline();
+			snapshot.eventPeriods[e] = timeout.getPeriod();
+		});
+		// size() still counts cancelled timeouts the wheel has not dropped yet
+		if (count[0] < snapshot.eventKinds.length) {
+			snapshot.eventKinds = Arrays.copyOf(snapshot.eventKinds, count[0]);
+			snapshot.eventKeys = Arrays.copyOf(snapshot.eventKeys, count[0]);
+			snapshot.eventDeadlines = Arrays.copyOf(snapshot.eventDeadlines, count[0]);
+			snapshot.eventPeriods = Arrays.copyOf(snapshot.eventPeriods, count[0]);
+		}
+		return new GameSnapshot(snapshot);
+	}
+
+	// Must run on the thread that ticks the engine; cheap enough to call after every tick
+	public GameView view() {
+		return new GameView(elapsedTicks, elapsedMillis, score, points, vaccineProgress, infectionStarted, outcome, infectionRate, populations);
+	}
+
+	public static GameEngine restore(GameSnapshot snapshot, World world) {
+		return restore(snapshot, world, RouteGraph.build(world));
+	}
+
+	public static GameEngine restore(GameSnapshot snapshot, World world, RouteGraph routes) {
+		GameEngine engine = new GameEngine(snapshot.difficulty, snapshot.seed, world, routes);
+		if (worldHash(engine.countries) != snapshot.worldHash) {
+			throw new IllegalArgumentException("Saved game was played on a different world");
+		}
+
+		engine.elapsedMillis = snapshot.elapsedMillis;
+		engine.elapsedTicks = snapshot.elapsedTicks;
+		engine.peakInfected = snapshot.peakInfected;
+		engine.infectionStarted = snapshot.infectionStarted;
+		engine.outcome = snapshot.outcome;
+		engine.globalAwareness = snapshot.globalAwareness;
+		engine.laboratoryCount = snapshot.laboratoryCount;
+		engine.vaccineProgress = snapshot.vaccineProgress;
+		engine.score = snapshot.score;
+		engine.points = snapshot.points;
+		engine.nextPickupId = snapshot.nextPickupId;
+		engine.sanitationEffect = snapshot.sanitationEffect;
+		engine.vaccineDistribution = snapshot.vaccineDistribution;
+		engine.setInfectionRate(snapshot.infectionRate);
+		engine.populations.restore(snapshot);
+
+		RouteEligibility eligibility = engine.eligibility;
+		eligibility.setInfectionFreeZones(snapshot.infectionFreeZones);
+		eligibility.setRapidTesting(snapshot.rapidTesting);
+		eligibility.setVaccinePriority(snapshot.vaccinePriority);
+		eligibility.setAwarenessLockdown(engine.globalAwareness >= AWARENESS_LOCKDOWN);
+		eligibility.refreshAll();
+		// The grid restarts from the country totals; only the country level is saved
+		if (snapshot.gridWidth > 0) engine.useGrid(snapshot.gridWidth, snapshot.gridHeight);
+		if (snapshot.flowTraffic) engine.useFlowTraffic();
+
+		for (int p = 0; p < snapshot.pickupIds.length; p++) {
+			Pickup pickup = new Pickup(snapshot.pickupIds[p], engine.countries.get(snapshot.pickupCountries[p]),
+					snapshot.pickupInfected[p], snapshot.pickupPoints[p], snapshot.pickupOffsetX[p],
+					snapshot.pickupOffsetY[p], snapshot.pickupExpiresAt[p]);
+			engine.pickups.put(pickup.getId(), pickup);
+		}
+
+		for (int t = 0; t < snapshot.tripRoutes.length; t++) {
+			int routeId = snapshot.tripRoutes[t];
+			Trip trip = new Trip(engine.getRoute(routeId), snapshot.tripForVaccine[t], snapshot.tripInfected[t],
+					snapshot.tripDepartures[t], snapshot.tripArrivals[t]);
+			engine.trips.put(routeId, trip);
+			engine.routeInFlight[routeId] = true;
+		}
+
+		// Bring the empty wheel to the saved time, then add the events back in reverse so
+		// each slot runs them in the original order
+		engine.events.advanceTo(snapshot.elapsedMillis);
+		for (int e = snapshot.eventKinds.length - 1; e >= 0; e--) {
+			engine.schedule(snapshot.eventKinds[e], snapshot.eventKeys[e], snapshot.eventDeadlines[e], snapshot.eventPeriods[e]);
+		}
+		return engine;
+	}
+
+	static int worldHash(List<CountryState> countries) {
+		int hash = countries.size();
+		for (CountryState country : countries) {
+			hash = hash * 31 + country.getName().hashCode();
+			hash = hash * 31 + Long.hashCode(country.getTotalPopulation());
+		}
+		return hash;
+	}
+
+	public Collection<Trip> getTrips() {
+		return Collections.unmodifiableCollection(trips.values());
+	}
+
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	public boolean isInfectionStarted() {
+		return infectionStarted;
+	}
+
+	public boolean hasInfectedCountry() {
+		return populations.hasInfectedCountry();
+	}
+
+	public int getGlobalAwareness() {
+		return globalAwareness;
+	}
+
+	public void adjustGlobalAwareness(int delta) {
+		globalAwareness = Math.max(0, globalAwareness + delta);
+		eligibility.setAwarenessLockdown(globalAwareness >= AWARENESS_LOCKDOWN);
+	}
+
+	public PopulationStore getPopulations() {
+		return populations;
+	}
+
+	public List<CountryState> getCountries() {
+		return Collections.unmodifiableList(countries);
+	}
+
+	public RouteGraph getRouteGraph() {
+		return routes;
+	}
+
+	public Route getRoute(int routeId) {
+		return new Route(routeId, routes.getMode(routeId), countries.get(routes.getOrigin(routeId)),
+				countries.get(routes.getDestination(routeId)), routes.getDistance(routeId));
+	}
+
+	public List<Upgrade> getUpgrades() {
+		return Collections.unmodifiableList(upgrades);
+	}
+
+	public Collection<Pickup> getPickups() {
+		return Collections.unmodifiableCollection(pickups.values());
+	}
+
+	public SplittableRandom getRandom() {
+		return random;
+	}
+
+	public String getDifficulty() {
+		return difficulty;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public double getInfectionRate() {
+		return infectionRate;
+	}
+
+	public int getLaboratoryCount() {
+		return laboratoryCount;
+	}
+
+	public int getVaccineProgress() {
+		return vaccineProgress;
+	}
+
+	public boolean isVaccineDistribution() {
+		return vaccineDistribution;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getPoints() {
+		return points;
+	}
+
+	public long getElapsedTicks() {
+		return elapsedTicks;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public long getPeakInfected() {
+		return peakInfected;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	// Scheduled work is tagged with its kind rather than held as a lambda, so pending events
+	// can be saved and rebuilt by GameSnapshot
+	private class EngineEvent implements Runnable {
+		private final byte kind;
+		private final int key;
+
+		private EngineEvent(byte kind, int key) {
+			this.kind = kind;
+			this.key = key;
+		}
+
+		@Override
+		public void run() {
+			switch (kind) {
+				case GameSnapshot.MUTATION -> mutateAndNotify();
+				case GameSnapshot.LABORATORIES -> progressLaboratories();
+				case GameSnapshot.PICKUP_SPAWN -> spawnPickup();
+				case GameSnapshot.DISPATCH -> dispatchTransport(false);
+				case GameSnapshot.VACCINE_DISPATCH -> {
+					if (vaccineDistribution) dispatchTransport(true);
+				}
+				case GameSnapshot.PICKUP_EXPIRY -> expirePickup(key);
+				case GameSnapshot.TRIP_ARRIVAL -> completeTrip(key);
+				default -> throw new IllegalStateException("Unknown event kind " + kind);
+			}
+		}
+	}
+
+	public enum Outcome {
+		RUNNING, VICTORY, DEFEAT
+	}
+
+	public interface Listener {
+		default void onMutation() {}
+
+		default void onTripStarted(Trip trip) {}
+
+		default void onInfectionSpread(CountryState country) {}
+
+		default void onVaccineSpread(CountryState country) {}
+
+		default void onPickupSpawned(Pickup pickup) {}
+
+		default void onPickupExpired(Pickup pickup) {}
+	}
+}
@@ -0,0 +1,403 @@
+package simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Immutable copy of a game in progress. GameEngine.snapshot() fills it on the simulation thread;
+// after that it shares nothing with the engine, so any thread may write it out.
+public final class GameSnapshot {
+	private static final int MAGIC = 0x41505347; // "APSG"
+	// 2: the random generator is derived per tick, so it is no longer saved
+	private static final int VERSION = 2;
+
+	// Scheduled engine events, by kind; the key is a pickup id or route id where one applies
+	static final byte MUTATION = 0;
+	static final byte LABORATORIES = 1;
+	static final byte PICKUP_SPAWN = 2;
+	static final byte DISPATCH = 3;
+	static final byte VACCINE_DISPATCH = 4;
+	static final byte PICKUP_EXPIRY = 5;
+	static final byte TRIP_ARRIVAL = 6;
+
+	final String difficulty;
+	final long seed;
+	final int worldHash;
+	final long elapsedMillis;
+	final long elapsedTicks;
+	final long peakInfected;
+	final boolean infectionStarted;
+	final GameEngine.Outcome outcome;
+	final double infectionRate;
+	final double sanitationEffect;
+	final int globalAwareness;
+	final int laboratoryCount;
+	final int vaccineProgress;
+	final int score;
+	final int points;
+	final int nextPickupId;
+	final boolean vaccineDistribution;
+	final boolean infectionFreeZones;
+	final boolean rapidTesting;
+	final boolean vaccinePriority;
+	final boolean flowTraffic;
+	final int gridWidth;
+	final int gridHeight;
+
+	// Running world S, E, I, R totals, saved as-is so a restored game rounds exactly like the original
+	final double[] totals;
+
+	// Per country
+	final double[] susceptible;
+	final double[] exposed;
+	final double[] infected;
+	final double[] recovered;
+	final double[] vaccinated;
+	final boolean[] infectedFlags;
+	final boolean[] vaccinatedFlags;
+
+	// Per pickup on the map
+	final int[] pickupIds;
+	final int[] pickupCountries;
+	final boolean[] pickupInfected;
+	final int[] pickupPoints;
+	final int[] pickupOffsetX;
+	final int[] pickupOffsetY;
+	final long[] pickupExpiresAt;
+
+	// Per transport in flight
+	final int[] tripRoutes;
+	final boolean[] tripForVaccine;
+	final boolean[] tripInfected;
+	final long[] tripDepartures;
+	final long[] tripArrivals;
+
+	// Pending events in TimingWheel.forEach order
+	final byte[] eventKinds;
+	final int[] eventKeys;
+	final long[] eventDeadlines;
+	final long[] eventPeriods;
+
+	GameSnapshot(Builder builder) {
+		difficulty = builder.difficulty;
+		seed = builder.seed;
+		worldHash = builder.worldHash;
+		elapsedMillis = builder.elapsedMillis;
+		elapsedTicks = builder.elapsedTicks;
+		peakInfected = builder.peakInfected;
+		infectionStarted = builder.infectionStarted;
+		outcome = builder.outcome;
+		infectionRate = builder.infectionRate;
+		sanitationEffect = builder.sanitationEffect;
+		globalAwareness = builder.globalAwareness;
+		laboratoryCount = builder.laboratoryCount;
+		vaccineProgress = builder.vaccineProgress;
+		score = builder.score;
+		points = builder.points;
+		nextPickupId = builder.nextPickupId;
+		vaccineDistribution = builder.vaccineDistribution;
+		infectionFreeZones = builder.infectionFreeZones;
+		rapidTesting = builder.rapidTesting;
+		vaccinePriority = builder.vaccinePriority;
+		flowTraffic = builder.flowTraffic;
+		gridWidth = builder.gridWidth;
+		gridHeight = builder.gridHeight;
+		totals = builder.totals;
+		susceptible = builder.susceptible;
+		exposed = builder.exposed;
+		infected = builder.infected;
+		recovered = builder.recovered;
+		vaccinated = builder.vaccinated;
+		infectedFlags = builder.infectedFlags;
+		vaccinatedFlags = builder.vaccinatedFlags;
+		pickupIds = builder.pickupIds;
+		pickupCountries = builder.pickupCountries;
+		pickupInfected = builder.pickupInfected;
+		pickupPoints = builder.pickupPoints;
+		pickupOffsetX = builder.pickupOffsetX;
+		pickupOffsetY = builder.pickupOffsetY;
+		pickupExpiresAt = builder.pickupExpiresAt;
+		tripRoutes = builder.tripRoutes;
+		tripForVaccine = builder.tripForVaccine;
+		tripInfected = builder.tripInfected;
+		tripDepartures = builder.tripDepartures;
+		tripArrivals = builder.tripArrivals;
+		eventKinds = builder.eventKinds;
+		eventKeys = builder.eventKeys;
+		eventDeadlines = builder.eventDeadlines;
+		eventPeriods = builder.eventPeriods;
+	}
+
+	public String getDifficulty() {
+		return difficulty;
+	}
+
+	public long getElapsedTicks() {
+		return elapsedTicks;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	// Written to a sibling file first and moved over the old one, so a crash mid-write
+	// leaves the previous save intact
+	public void save(Path path) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			write(out);
+		}
+		try {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	public static GameSnapshot load(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			return read(in, path);
+		}
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(difficulty);
+		out.writeLong(seed);
+		out.writeInt(worldHash);
+		out.writeLong(elapsedMillis);
+		out.writeLong(elapsedTicks);
+		out.writeLong(peakInfected);
+		out.writeBoolean(infectionStarted);
+		out.writeByte(outcome.ordinal());
+		out.writeDouble(infectionRate);
+		out.writeDouble(sanitationEffect);
+		out.writeInt(globalAwareness);
+		out.writeInt(laboratoryCount);
+		out.writeInt(vaccineProgress);
+		out.writeInt(score);
+		out.writeInt(points);
+		out.writeInt(nextPickupId);
+		out.writeBoolean(vaccineDistribution);
+		out.writeBoolean(infectionFreeZones);
+		out.writeBoolean(rapidTesting);
+		out.writeBoolean(vaccinePriority);
+		out.writeBoolean(flowTraffic);
+		out.writeInt(gridWidth);
+		out.writeInt(gridHeight);
+
+		for (double total : totals) {
+			out.writeDouble(total);
+		}
+		out.writeInt(susceptible.length);
+		for (int c = 0; c < susceptible.length; c++) {
+			out.writeDouble(susceptible[c]);
+			out.writeDouble(exposed[c]);
+			out.writeDouble(infected[c]);
+			out.writeDouble(recovered[c]);
+			out.writeDouble(vaccinated[c]);
+			out.writeByte((infectedFlags[c] ? 1 : 0) | (vaccinatedFlags[c] ? 2 : 0));
+		}
+
+		out.writeInt(pickupIds.length);
+		for (int p = 0; p < pickupIds.length; p++) {
+			out.writeInt(pickupIds[p]);
+			out.writeInt(pickupCountries[p]);
+			out.writeBoolean(pickupInfected[p]);
+			out.writeInt(pickupPoints[p]);
+			out.writeInt(pickupOffsetX[p]);
+			out.writeInt(pickupOffsetY[p]);
+			out.writeLong(pickupExpiresAt[p]);
+		}
+
+		out.writeInt(tripRoutes.length);
+		for (int t = 0; t < tripRoutes.length; t++) {
+			out.writeInt(tripRoutes[t]);
+			out.writeByte((tripForVaccine[t] ? 1 : 0) | (tripInfected[t] ? 2 : 0));
+			out.writeLong(tripDepartures[t]);
+			out.writeLong(tripArrivals[t]);
+		}
+
+		out.writeInt(eventKinds.length);
+		for (int e = 0; e < eventKinds.length; e++) {
+			out.writeByte(eventKinds[e]);
+			out.writeInt(eventKeys[e]);
+			out.writeLong(eventDeadlines[e]);
+			out.writeLong(eventPeriods[e]);
+		}
+	}
+
+	private static GameSnapshot read(DataInputStream in, Path path) throws IOException {
+		if (in.readInt() != MAGIC) throw new IOException(path + ": not a saved game");
+		int version = in.readInt();
+		if (version != VERSION) throw new IOException(path + ": unsupported save version " + version);
+
+		Builder builder = new Builder();
+		builder.difficulty = in.readUTF();
+		builder.seed = in.readLong();
+		builder.worldHash = in.readInt();
+		builder.elapsedMillis = in.readLong();
+		builder.elapsedTicks = in.readLong();
+		builder.peakInfected = in.readLong();
+		builder.infectionStarted = in.readBoolean();
+		int outcome = in.readByte();
+		if (outcome < 0 || outcome >= GameEngine.Outcome.values().length) {
+			throw new IOException(path + ": unknown game outcome " + outcome);
+		}
+		builder.outcome = GameEngine.Outcome.values()[outcome];
+		builder.infectionRate = in.readDouble();
+		builder.sanitationEffect = in.readDouble();
+		builder.globalAwareness = in.readInt();
+		builder.laboratoryCount = in.readInt();
+		builder.vaccineProgress = in.readInt();
+		builder.score = in.readInt();
+		builder.points = in.readInt();
+		builder.nextPickupId = in.readInt();
+		builder.vaccineDistribution = in.readBoolean();
+		builder.infectionFreeZones = in.readBoolean();
+		builder.rapidTesting = in.readBoolean();
+		builder.vaccinePriority = in.readBoolean();
+		builder.flowTraffic = in.readBoolean();
+		builder.gridWidth = in.readInt();
+		builder.gridHeight = in.readInt();
+
+		for (int k = 0; k < builder.totals.length; k++) {
+			builder.totals[k] = in.readDouble();
+		}
+		builder.countries(in.readInt());
+		for (int c = 0; c < builder.susceptible.length; c++) {
+			builder.susceptible[c] = in.readDouble();
+			builder.exposed[c] = in.readDouble();
+			builder.infected[c] = in.readDouble();
+			builder.recovered[c] = in.readDouble();
+			builder.vaccinated[c] = in.readDouble();
+			int flags = in.readByte();
+			builder.infectedFlags[c] = (flags & 1) != 0;
+			builder.vaccinatedFlags[c] = (flags & 2) != 0;
+		}
+
+		builder.pickups(in.readInt());
+		for (int p = 0; p < builder.pickupIds.length; p++) {
+			builder.pickupIds[p] = in.readInt();
+			builder.pickupCountries[p] = in.readInt();
+			builder.pickupInfected[p] = in.readBoolean();
+			builder.pickupPoints[p] = in.readInt();
+			builder.pickupOffsetX[p] = in.readInt();
+			builder.pickupOffsetY[p] = in.readInt();
+			builder.pickupExpiresAt[p] = in.readLong();
+		}
+
+		builder.trips(in.readInt());
+		for (int t = 0; t < builder.tripRoutes.length; t++) {
+			builder.tripRoutes[t] = in.readInt();
+			int flags = in.readByte();
+			builder.tripForVaccine[t] = (flags & 1) != 0;
+			builder.tripInfected[t] = (flags & 2) != 0;
+			builder.tripDepartures[t] = in.readLong();
+			builder.tripArrivals[t] = in.readLong();
+		}
+
+		builder.events(in.readInt());
+		for (int e = 0; e < builder.eventKinds.length; e++) {
+			builder.eventKinds[e] = in.readByte();
+			builder.eventKeys[e] = in.readInt();
+			builder.eventDeadlines[e] = in.readLong();
+			builder.eventPeriods[e] = in.readLong();
+		}
+
+		return new GameSnapshot(builder);
+	}
+
+	// Mutable staging area; the arrays are handed to the snapshot without another copy
+	static class Builder {
+		String difficulty;
+		long seed;
+		int worldHash;
+		long elapsedMillis;
+		long elapsedTicks;
+		long peakInfected;
+		boolean infectionStarted;
+		GameEngine.Outcome outcome;
+		double infectionRate;
+		double sanitationEffect;
+		int globalAwareness;
+		int laboratoryCount;
+		int vaccineProgress;
+		int score;
+		int points;
+		int nextPickupId;
+		boolean vaccineDistribution;
+		boolean infectionFreeZones;
+		boolean rapidTesting;
+		boolean vaccinePriority;
+		boolean flowTraffic;
+		int gridWidth;
+		int gridHeight;
+		double[] totals = new double[4];
+		double[] susceptible;
+		double[] exposed;
+		double[] infected;
+		double[] recovered;
+		double[] vaccinated;
+		boolean[] infectedFlags;
+		boolean[] vaccinatedFlags;
+		int[] pickupIds;
+		int[] pickupCountries;
+		boolean[] pickupInfected;
+		int[] pickupPoints;
+		int[] pickupOffsetX;
+		int[] pickupOffsetY;
+		long[] pickupExpiresAt;
+		int[] tripRoutes;
+		boolean[] tripForVaccine;
+		boolean[] tripInfected;
+		long[] tripDepartures;
+		long[] tripArrivals;
+		byte[] eventKinds;
+		int[] eventKeys;
+		long[] eventDeadlines;
+		long[] eventPeriods;
+
+		void countries(int count) {
+			susceptible = new double[count];
+			exposed = new double[count];
+			infected = new double[count];
+			recovered = new double[count];
+			vaccinated = new double[count];
+			infectedFlags = new boolean[count];
+			vaccinatedFlags = new boolean[count];
+		}
+
+		void pickups(int count) {
+			pickupIds = new int[count];
+			pickupCountries = new int[count];
+			pickupInfected = new boolean[count];
+			pickupPoints = new int[count];
+			pickupOffsetX = new int[count];
+			pickupOffsetY = new int[count];
+			pickupExpiresAt = new long[count];
+		}
+
+		void trips(int count) {
+			tripRoutes = new int[count];
+			tripForVaccine = new boolean[count];
+			tripInfected = new boolean[count];
+			tripDepartures = new long[count];
+			tripArrivals = new long[count];
+		}
+
+		void events(int count) {
+			eventKinds = new byte[count];
+			eventKeys = new int[count];
+			eventDeadlines = new long[count];
+			eventPeriods = new long[count];
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package simulation;
+
+import java.util.Arrays;
+
+// What the UI shows of a game at one moment. GameEngine.view() copies it on the simulation thread
+// after every tick and player action; it never changes afterwards, so the EDT reads it without
+// locks while the engine moves on. Populations are rounded the same way CountryState rounds them.
+// Only the state a tick changes is copied; what is fixed when the world loads is shared with the engine.
+public final class GameView {
+	private final long elapsedTicks;
+	private final long elapsedMillis;
+	private final int score;
+	private final int points;
+	private final int vaccineProgress;
+	private final boolean infectionStarted;
+	private final GameEngine.Outcome outcome;
+	private final double transmissionRate;
+
+	// Per country, copied
+	private final double[] susceptible;
+	private final double[] exposed;
+	private final double[] infected;
+	private final double[] recovered;
+	private final double[] vaccinated;
+	private final boolean[] infectedFlags;
+	private final boolean[] vaccinatedFlags;
+	// Per country, shared: the PopulationStore sets these once per country and never again
+	private final double[] population;
+	private final double[] area;
+	private final double[] susceptibility;
+	private final double[] gamma;
+
+	GameView(long elapsedTicks, long elapsedMillis, int score, int points, int vaccineProgress,
+			 boolean infectionStarted, GameEngine.Outcome outcome, double transmissionRate, PopulationStore populations) {
+		this.elapsedTicks = elapsedTicks;
+		this.elapsedMillis = elapsedMillis;
+		this.score = score;
+		this.points = points;
+		this.vaccineProgress = vaccineProgress;
+		this.infectionStarted = infectionStarted;
+		this.outcome = outcome;
+		this.transmissionRate = transmissionRate;
+
+		int size = populations.size();
+		susceptible = Arrays.copyOf(populations.susceptibleArray(), size);
+		exposed = Arrays.copyOf(populations.exposedArray(), size);
+		infected = Arrays.copyOf(populations.infectedArray(), size);
+		recovered = Arrays.copyOf(populations.recoveredArray(), size);
+		vaccinated = Arrays.copyOf(populations.vaccinatedArray(), size);
+		infectedFlags = Arrays.copyOf(populations.infectedFlags(), size);
+		vaccinatedFlags = Arrays.copyOf(populations.vaccinatedFlags(), size);
+		population = populations.populationArray();
+		area = populations.areaArray();
+		susceptibility = populations.susceptibilityArray();
+		gamma = populations.gammaArray();
+	}
+
+	public long getElapsedTicks() {
+		return elapsedTicks;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getPoints() {
+		return points;
+	}
+
+	public int getVaccineProgress() {
+		return vaccineProgress;
+	}
+
+	public boolean isInfectionStarted() {
+		return infectionStarted;
+	}
+
+	public GameEngine.Outcome getOutcome() {
+		return outcome;
+	}
+
+	public boolean isInfected(int id) {
+		return infectedFlags[id];
+	}
+
+	public boolean isVaccinated(int id) {
+		return vaccinatedFlags[id];
+	}
+
+	public long getNormalPopulation(int id) {
+		return Math.round(susceptible[id] + exposed[id] + recovered[id]);
+	}
+
+	public long getExposedPopulation(int id) {
+		return Math.round(exposed[id]);
+	}
+
+	public long getInfectedPopulation(int id) {
+		return Math.round(infected[id]);
+	}
+
+	public long getRecoveredPopulation(int id) {
+		return Math.round(recovered[id]);
+	}
+
+	public long getVaccinatedPopulation(int id) {
+		return Math.round(vaccinated[id]);
+	}
+
+	public long getTotalPopulation(int id) {
+		return Math.round(population[id]);
+	}
+
+	public double getPopulationDensity(int id) {
+		return getNormalPopulation(id) / area[id];
+	}
+
+	// Computed as PopulationStore.setTransmissionRate does, rather than copying every country's rate
+	public double getTransmissionRate(int id) {
+		return transmissionRate * (1 + susceptibility[id]);
+	}
+
+	public double getRecoveryRate(int id) {
+		return gamma[id];
+	}
+}
@@ -0,0 +1,290 @@
+package simulation;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Optional sub-national model: the map is rasterised into cells owned by the nearest
+// country, and infection diffuses between neighbouring cells of the same country.
+// Country totals in the PopulationStore are derived from the cells after every step.
+public class GridModel {
+	public static final double MAP_WIDTH = 800;
+	public static final double MAP_HEIGHT = 500;
+	// Cells further than this from every country centre are sea
+	private static final double COUNTRY_RADIUS = 75;
+	// Weight of each of the four neighbours in the diffusion stencil
+	private static final float DIFFUSION = 0.15f;
+	private static final int ROWS_PER_TILE = 32;
+	private static final double EXTINCTION_THRESHOLD = 0.5;
+	private static final int S = 0, E = 1, I = 2, R = 3, COMPARTMENTS = 4;
+
+	private final int width;
+	private final int height;
+	private final int countryCount;
+	private final int[] owner;
+	private final int[] seedCell;
+	private final float[] inversePopulation;
+	private final float[] susceptible;
+	private final float[] exposed;
+	private float[] infected;
+	private float[] nextInfected;
+	private final float[] recovered;
+	// Per-country totals of the cells as of the last step, indexed [compartment][country]
+	private final double[][] totals;
+	private final ForkJoinPool pool;
+
+	public GridModel(int width, int height, List<CountryState> countries, PopulationStore populations) {
+		this(width, height, countries, populations, ForkJoinPool.commonPool());
+	}
+
+	public GridModel(int width, int height, List<CountryState> countries, PopulationStore populations, ForkJoinPool pool) {
+		this.width = width;
+		this.height = height;
+		this.countryCount = countries.size();
+		this.pool = pool;
+
+		int cells = width * height;
+		owner = new int[cells];
+		seedCell = new int[countryCount];
+		inversePopulation = new float[cells];
+		susceptible = new float[cells];
+		exposed = new float[cells];
+		infected = new float[cells];
+		nextInfected = new float[cells];
+		recovered = new float[cells];
+		totals = new double[COMPARTMENTS][countryCount];
+
+		int[] cellCount = rasterise(countries);
+		for (int cell = 0; cell < cells; cell++) {
+			int country = owner[cell];
+			if (country < 0) continue;
+
+			double cellPopulation = (double) populations.getTotal(country) / cellCount[country];
+			inversePopulation[cell] = (float) (1 / cellPopulation);
+			susceptible[cell] = (float) cellPopulation;
+			totals[S][country] += cellPopulation;
+		}
+
+		pull(populations);
+	}
+
+	private int[] rasterise(List<CountryState> countries) {
+		double cellWidth = MAP_WIDTH / width;
+		double cellHeight = MAP_HEIGHT / height;
+		double radiusSquared = COUNTRY_RADIUS * COUNTRY_RADIUS;
+		int[] cellCount = new int[countryCount];
+
+		for (int y = 0; y < height; y++) {
+			double mapY = (y + 0.5) * cellHeight;
+			for (int x = 0; x < width; x++) {
+				double mapX = (x + 0.5) * cellWidth;
+				int nearest = -1;
+				double nearestDistance = radiusSquared;
+
+				for (int c = 0; c < countryCount; c++) {
+					double dx = countries.get(c).getX() - mapX;
+					double dy = countries.get(c).getY() - mapY;
+					double distance = dx * dx + dy * dy;
+					if (distance < nearestDistance) {
+						nearest = c;
+						nearestDistance = distance;
+					}
+				}
+
+				owner[y * width + x] = nearest;
+				if (nearest >= 0) cellCount[nearest]++;
+			}
+		}
+
+		// Every country keeps at least the cell under its centre, even when a neighbour is closer
+		for (int c = 0; c < countryCount; c++) {
+			int x = (int) Math.min(width - 1, Math.max(0, countries.get(c).getX() / cellWidth));
+			int y = (int) Math.min(height - 1, Math.max(0, countries.get(c).getY() / cellHeight));
+			int cell = y * width + x;
+			if (owner[cell] != c) {
+				if (owner[cell] >= 0) cellCount[owner[cell]]--;
+				owner[cell] = c;
+				cellCount[c]++;
+			}
+			seedCell[c] = cell;
+		}
+
+		// A country that lost its only cell to another centre would otherwise divide by zero
+		for (int c = 0; c < countryCount; c++) {
+			if (cellCount[c] == 0) {
+				throw new IllegalArgumentException("Grid " + width + "x" + height + " is too coarse for " + countries.get(c).getName());
+			}
+		}
+		return cellCount;
+	}
+
+	public void update(PopulationStore populations) {
+		pull(populations);
+
+		double[][] stepTotals = pool.invoke(new Tile(populations, 0, height));
+		float[] swap = infected;
+		infected = nextInfected;
+		nextInfected = swap;
+
+		push(populations, stepTotals);
+	}
+
+	// Vaccination, seeding and extinction are applied to the country totals by the engine;
+	// scaling each compartment's cells by store / grid carries them down to the cells
+	private void pull(PopulationStore populations) {
+		double[][] store = {populations.susceptibleArray(), populations.exposedArray(),
+				populations.infectedArray(), populations.recoveredArray()};
+		float[][] cells = {susceptible, exposed, infected, recovered};
+		float[][] scale = new float[COMPARTMENTS][countryCount];
+		boolean changed = false;
+
+		for (int k = 0; k < COMPARTMENTS; k++) {
+			for (int c = 0; c < countryCount; c++) {
+				double target = store[k][c];
+				double current = totals[k][c];
+				if (current > 0) {
+					scale[k][c] = (float) (target / current);
+				} else {
+					// Nothing to scale yet: the whole amount starts in the country's centre cell
+					scale[k][c] = 1;
+					if (target > 0) {
+						cells[k][seedCell[c]] += (float) target;
+					}
+				}
+				if (scale[k][c] != 1) changed = true;
+				totals[k][c] = target;
+			}
+		}
+
+		if (!changed) return;
+		for (int cell = 0; cell < owner.length; cell++) {
+			int c = owner[cell];
+			if (c < 0) continue;
+			susceptible[cell] *= scale[S][c];
+			exposed[cell] *= scale[E][c];
+			infected[cell] *= scale[I][c];
+			recovered[cell] *= scale[R][c];
+		}
+	}
+
+	private void push(PopulationStore populations, double[][] stepTotals) {
+		for (int c = 0; c < countryCount; c++) {
+			double s = stepTotals[S][c];
+			double e = stepTotals[E][c];
+			double i = stepTotals[I][c];
+			double r = stepTotals[R][c];
+			if (e + i < EXTINCTION_THRESHOLD) {
+				r += e + i;
+				e = 0;
+				i = 0;
+			}
+			populations.setCompartments(c, s, e, i, r);
+			totals[S][c] = stepTotals[S][c];
+			totals[E][c] = stepTotals[E][c];
+			totals[I][c] = stepTotals[I][c];
+			totals[R][c] = stepTotals[R][c];
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getOwner(int x, int y) {
+		return owner[y * width + x];
+	}
+
+	public float getInfectedFraction(int x, int y) {
+		int cell = y * width + x;
+		return infected[cell] * inversePopulation[cell];
+	}
+
+	// A band of rows; splits until it is ROWS_PER_TILE high, then steps its cells and
+	// returns its own per-country totals so no two tiles write to shared sums
+	private class Tile extends RecursiveTask<double[][]> {
+		private final PopulationStore populations;
+		private final int fromRow;
+		private final int toRow;
+
+		private Tile(PopulationStore populations, int fromRow, int toRow) {
+			this.populations = populations;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+		}
+
+		@Override
+		protected double[][] compute() {
+			if (toRow - fromRow > ROWS_PER_TILE) {
+				int middle = (fromRow + toRow) >>> 1;
+				Tile top = new Tile(populations, fromRow, middle);
+				Tile bottom = new Tile(populations, middle, toRow);
+				top.fork();
+				double[][] sums = bottom.compute();
+				double[][] topSums = top.join();
+				for (int k = 0; k < COMPARTMENTS; k++) {
+					for (int c = 0; c < countryCount; c++) {
+						sums[k][c] += topSums[k][c];
+					}
+				}
+				return sums;
+			}
+			return step();
+		}
+
+		private double[][] step() {
+			double[][] sums = new double[COMPARTMENTS][countryCount];
+			double[] beta = populations.betaArray();
+			double[] sigma = populations.sigmaArray();
+			double[] gamma = populations.gammaArray();
+			float[] in = infected;
+			float[] out = nextInfected;
+
+			for (int y = fromRow; y < toRow; y++) {
+				for (int x = 0; x < width; x++) {
+					int cell = y * width + x;
+					int c = owner[cell];
+					if (c < 0) continue;
+
+					float self = in[cell] * inversePopulation[cell];
+					float left = x > 0 ? neighbour(cell - 1, c, self) : self;
+					float right = x < width - 1 ? neighbour(cell + 1, c, self) : self;
+					float up = y > 0 ? neighbour(cell - width, c, self) : self;
+					float down = y < height - 1 ? neighbour(cell + width, c, self) : self;
+					float pressure = (1 - 4 * DIFFUSION) * self + DIFFUSION * (left + right + up + down);
+
+					float s = susceptible[cell];
+					float e = exposed[cell];
+					float i = in[cell];
+					float newExposed = Math.min(s, (float) beta[c] * s * pressure);
+					float newInfected = (float) sigma[c] * e;
+					float newRecovered = (float) gamma[c] * i;
+
+					s -= newExposed;
+					e += newExposed - newInfected;
+					i += newInfected - newRecovered;
+					float r = recovered[cell] + newRecovered;
+
+					susceptible[cell] = s;
+					exposed[cell] = e;
+					out[cell] = i;
+					recovered[cell] = r;
+
+					sums[S][c] += s;
+					sums[E][c] += e;
+					sums[I][c] += i;
+					sums[R][c] += r;
+				}
+			}
+			return sums;
+		}
+
+		// Sea and other countries reflect: infection crosses borders only by transport
+		private float neighbour(int cell, int country, float self) {
+			return owner[cell] == country ? infected[cell] * inversePopulation[cell] : self;
+		}
+	}
+}
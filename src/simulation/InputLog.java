@@ -0,0 +1,217 @@
+package simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// A session as its seed plus every player action, each stamped with the tick it was applied after.
+// Since the engine is deterministic for a given seed, replaying the actions at the same ticks
+// reproduces the session exactly.
+public class InputLog {
+	private static final int MAGIC = 0x4150494C; // "APIL"
+	private static final int VERSION = 1;
+
+	public static final byte SELECT_COUNTRY = 0;
+	public static final byte COLLECT_PICKUP = 1;
+	public static final byte PURCHASE_UPGRADE = 2;
+	// Closes the log with the final state, so a replay can tell whether it matched
+	private static final byte END = 3;
+
+	private final String difficulty;
+	private final long seed;
+	private final int worldHash;
+	private final long[] ticks;
+	private final byte[] kinds;
+	private final int[] arguments;
+	private final boolean ended;
+	private final long endTick;
+	private final long endFingerprint;
+
+	private InputLog(String difficulty, long seed, int worldHash, long[] ticks, byte[] kinds, int[] arguments,
+			boolean ended, long endTick, long endFingerprint) {
+		this.difficulty = difficulty;
+		this.seed = seed;
+		this.worldHash = worldHash;
+		this.ticks = ticks;
+		this.kinds = kinds;
+		this.arguments = arguments;
+		this.ended = ended;
+		this.endTick = endTick;
+		this.endFingerprint = endFingerprint;
+	}
+
+	// A log cut short by a crash still reads up to its last complete action
+	public static InputLog read(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC) throw new IOException(path + ": not an input log");
+			int version = in.readInt();
+			if (version != VERSION) throw new IOException(path + ": unsupported input log version " + version);
+
+			String difficulty = in.readUTF();
+			long seed = in.readLong();
+			int worldHash = in.readInt();
+
+			int size = 0;
+			long[] ticks = new long[16];
+			byte[] kinds = new byte[16];
+			int[] arguments = new int[16];
+			boolean ended = false;
+			long endTick = 0;
+			long endFingerprint = 0;
+
+			try {
+				while (!ended) {
+					byte kind = in.readByte();
+					long tick = in.readLong();
+					if (kind == END) {
+						endFingerprint = in.readLong();
+						endTick = tick;
+						ended = true;
+						continue;
+					}
+
+					int argument = in.readInt();
+					if (size == ticks.length) {
+						ticks = Arrays.copyOf(ticks, size * 2);
+						kinds = Arrays.copyOf(kinds, size * 2);
+						arguments = Arrays.copyOf(arguments, size * 2);
+					}
+					ticks[size] = tick;
+					kinds[size] = kind;
+					arguments[size] = argument;
+					size++;
+				}
+			} catch (EOFException e) {
+				// Truncated: keep the complete entries read so far
+			}
+
+			return new InputLog(difficulty, seed, worldHash, Arrays.copyOf(ticks, size), Arrays.copyOf(kinds, size),
+					Arrays.copyOf(arguments, size), ended, endTick, endFingerprint);
+		}
+	}
+
+	// Re-runs the session headless, as fast as the engine ticks. Without an end marker it runs
+	// until the game is decided or maxTicks pass.
+	public GameEngine replay(World world, long maxTicks) {
+		GameEngine engine = new GameEngine(difficulty, seed, world);
+		if (GameEngine.worldHash(engine.getCountries()) != worldHash) {
+			throw new IllegalArgumentException("Input log was recorded on a different world");
+		}
+
+		for (int i = 0; i < kinds.length; i++) {
+			while (engine.getElapsedTicks() < ticks[i] && engine.getOutcome() == GameEngine.Outcome.RUNNING) {
+				engine.tick();
+			}
+			apply(engine, kinds[i], arguments[i]);
+		}
+
+		long lastTick = ended ? endTick : maxTicks;
+		while (engine.getElapsedTicks() < lastTick && engine.getOutcome() == GameEngine.Outcome.RUNNING) {
+			engine.tick();
+		}
+		return engine;
+	}
+
+	public static String apply(GameEngine engine, byte kind, int argument) {
+		switch (kind) {
+			case SELECT_COUNTRY -> engine.infectFirstCountry(argument);
+			case COLLECT_PICKUP -> engine.collectPickup(argument);
+			case PURCHASE_UPGRADE -> {
+				return engine.purchaseUpgrade(engine.getUpgrades().get(argument));
+			}
+			default -> throw new IllegalArgumentException("Unknown action " + kind);
+		}
+		return null;
+	}
+
+	// Hash of everything a session can end with; two runs match when their fingerprints do
+	public static long fingerprint(GameEngine engine) {
+		long hash = engine.getElapsedTicks();
+		hash = hash * 31 + engine.getOutcome().ordinal();
+		hash = hash * 31 + engine.getScore();
+		hash = hash * 31 + engine.getPoints();
+		hash = hash * 31 + engine.getVaccineProgress();
+		hash = hash * 31 + Double.doubleToLongBits(engine.getInfectionRate());
+
+		PopulationStore populations = engine.getPopulations();
+		for (int id = 0; id < populations.size(); id++) {
+			hash = hash * 31 + Double.doubleToLongBits(populations.susceptibleArray()[id]);
+			hash = hash * 31 + Double.doubleToLongBits(populations.exposedArray()[id]);
+			hash = hash * 31 + Double.doubleToLongBits(populations.infectedArray()[id]);
+			hash = hash * 31 + Double.doubleToLongBits(populations.recoveredArray()[id]);
+			hash = hash * 31 + populations.getVaccinated(id);
+		}
+		return hash;
+	}
+
+	public String getDifficulty() {
+		return difficulty;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int size() {
+		return kinds.length;
+	}
+
+	public boolean isEnded() {
+		return ended;
+	}
+
+	public long getEndTick() {
+		return endTick;
+	}
+
+	public long getEndFingerprint() {
+		return endFingerprint;
+	}
+
+	// Appends each action as it happens and flushes it, so the file is usable even if the game crashes.
+	// Not thread-safe; use it from the thread that ticks the engine.
+	public static class Recorder implements Closeable {
+		private final DataOutputStream out;
+		private boolean closed = false;
+
+		public Recorder(Path path, GameEngine engine) throws IOException {
+			out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(engine.getDifficulty());
+			out.writeLong(engine.getSeed());
+			out.writeInt(GameEngine.worldHash(engine.getCountries()));
+			out.flush();
+		}
+
+		public void record(GameEngine engine, byte kind, int argument) throws IOException {
+			if (closed) return;
+			out.writeByte(kind);
+			out.writeLong(engine.getElapsedTicks());
+			out.writeInt(argument);
+			out.flush();
+		}
+
+		public void end(GameEngine engine) throws IOException {
+			if (closed) return;
+			out.writeByte(END);
+			out.writeLong(engine.getElapsedTicks());
+			out.writeLong(fingerprint(engine));
+			close();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) return;
+			closed = true;
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package simulation;
+
+public class Pickup {
+	private final int id;
+	private final CountryState country;
+	private final boolean infectedCountry;
+	private final int points;
+	private final int offsetX;
+	private final int offsetY;
+	private final long expiresAtMillis;
+
+	public Pickup(int id, CountryState country, boolean infectedCountry, int points, int offsetX, int offsetY, long expiresAtMillis) {
+		this.id = id;
+		this.country = country;
+		this.infectedCountry = infectedCountry;
+		this.points = points;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+		this.expiresAtMillis = expiresAtMillis;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public CountryState getCountry() {
+		return country;
+	}
+
+	public boolean isInfectedCountry() {
+		return infectedCountry;
+	}
+
+	public int getPoints() {
+		return points;
+	}
+
+	public int getOffsetX() {
+		return offsetX;
+	}
+
+	public int getOffsetY() {
+		return offsetY;
+	}
+
+	public long getExpiresAtMillis() {
+		return expiresAtMillis;
+	}
+}
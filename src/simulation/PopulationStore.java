@@ -0,0 +1,406 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// SEIR compartments per country, kept fractional so slow outbreaks do not round to zero.
+// Normal population is everyone neither infected nor vaccinated: S + E + R.
+public class PopulationStore {
+	// Below one person an outbreak is treated as extinct rather than decaying forever
+	private static final double EXTINCTION_THRESHOLD = 0.5;
+
+	private int size = 0;
+	private double[] susceptible;
+	private double[] exposed;
+	private double[] infected;
+	private double[] recovered;
+	private double[] vaccinated;
+	private double[] population;
+	private double[] beta;
+	private double[] sigma;
+	private double[] gamma;
+	private double[] susceptibility;
+	private double[] area;
+	private boolean[] infectedFlag;
+	private boolean[] vaccinatedFlag;
+	// Running world totals, adjusted by every change to a country so the sums never rescan it
+	private double totalSusceptible = 0;
+	private double totalExposed = 0;
+	private double totalInfected = 0;
+	private double totalRecovered = 0;
+	private double totalPopulation = 0;
+	private int activeCount = 0;
+	private int infectedCountryCount = 0;
+
+	public PopulationStore(int capacity) {
+		susceptible = new double[capacity];
+		exposed = new double[capacity];
+		infected = new double[capacity];
+		recovered = new double[capacity];
+		vaccinated = new double[capacity];
+		population = new double[capacity];
+		beta = new double[capacity];
+		sigma = new double[capacity];
+		gamma = new double[capacity];
+		susceptibility = new double[capacity];
+		area = new double[capacity];
+		infectedFlag = new boolean[capacity];
+		vaccinatedFlag = new boolean[capacity];
+	}
+
+	public int add(long totalPopulation, double susceptibility, double area, double sigma, double gamma) {
+		if (size == susceptible.length) grow();
+
+		int id = size++;
+		this.susceptible[id] = totalPopulation;
+		this.population[id] = totalPopulation;
+		this.susceptibility[id] = susceptibility;
+		this.area[id] = area;
+		this.sigma[id] = sigma;
+		this.gamma[id] = gamma;
+		totalSusceptible += totalPopulation;
+		this.totalPopulation += totalPopulation;
+		return id;
+	}
+
+	private void grow() {
+		int capacity = Math.max(8, susceptible.length * 2);
+		susceptible = Arrays.copyOf(susceptible, capacity);
+		exposed = Arrays.copyOf(exposed, capacity);
+		infected = Arrays.copyOf(infected, capacity);
+		recovered = Arrays.copyOf(recovered, capacity);
+		vaccinated = Arrays.copyOf(vaccinated, capacity);
+		population = Arrays.copyOf(population, capacity);
+		beta = Arrays.copyOf(beta, capacity);
+		sigma = Arrays.copyOf(sigma, capacity);
+		gamma = Arrays.copyOf(gamma, capacity);
+		susceptibility = Arrays.copyOf(susceptibility, capacity);
+		area = Arrays.copyOf(area, capacity);
+		infectedFlag = Arrays.copyOf(infectedFlag, capacity);
+		vaccinatedFlag = Arrays.copyOf(vaccinatedFlag, capacity);
+	}
+
+	public void updateInfection() {
+		step(0, size);
+	}
+
+	public void updateInfection(int id) {
+		step(id, id + 1);
+	}
+
+	// One tick of S -> E -> I -> R. The body is branch-free straight-line arithmetic over
+	// parallel arrays so C2 can unroll and vectorise it.
+	private void step(int from, int to) {
+		double[] s = susceptible;
+		double[] e = exposed;
+		double[] i = infected;
+		double[] r = recovered;
+		double[] n = population;
+		double[] b = beta;
+		double[] sg = sigma;
+		double[] gm = gamma;
+		double deltaSusceptible = 0;
+		double deltaExposed = 0;
+		double deltaInfected = 0;
+		double deltaRecovered = 0;
+		int deltaActive = 0;
+
+		for (int k = from; k < to; k++) {
+			double newExposed = Math.min(s[k], b[k] * s[k] * i[k] / n[k]);
+			double newInfected = sg[k] * e[k];
+			double newRecovered = gm[k] * i[k];
+
+			double nextExposed = e[k] + newExposed - newInfected;
+			double nextInfected = i[k] + newInfected - newRecovered;
+			int wasAlive = e[k] + i[k] >= EXTINCTION_THRESHOLD ? 1 : 0;
+			int alive = nextExposed + nextInfected >= EXTINCTION_THRESHOLD ? 1 : 0;
+			double extinct = (1 - alive) * (nextExposed + nextInfected);
+
+			deltaSusceptible -= newExposed;
+			deltaExposed += nextExposed * alive - e[k];
+			deltaInfected += nextInfected * alive - i[k];
+			deltaRecovered += newRecovered + extinct;
+			deltaActive += alive - wasAlive;
+
+			s[k] -= newExposed;
+			r[k] += newRecovered + extinct;
+			e[k] = nextExposed * alive;
+			i[k] = nextInfected * alive;
+		}
+
+		totalSusceptible += deltaSusceptible;
+		totalExposed += deltaExposed;
+		totalInfected += deltaInfected;
+		totalRecovered += deltaRecovered;
+		activeCount += deltaActive;
+	}
+
+	public void updateVaccination(SplittableRandom random) {
+		for (int id = 0; id < size; id++) {
+			updateVaccination(id, random);
+		}
+	}
+
+	public void updateVaccination(int id, SplittableRandom random) {
+		if (vaccinatedFlag[id] && getUnvaccinated(id) > 0) {
+			double randomRate = 1 + (random.nextDouble() * 2);
+			giveDoses(id, Math.min(Math.ceil(vaccinated[id] * randomRate), getUnvaccinated(id)));
+		}
+	}
+
+	// Infected people are vaccinated first, then the rest of the population
+	private void giveDoses(int id, double doses) {
+		boolean wasAlive = isActive(id);
+		double given = vaccinate(infected, id, doses);
+		totalInfected -= given;
+		doses -= given;
+		given = vaccinate(exposed, id, doses);
+		totalExposed -= given;
+		doses -= given;
+		given = vaccinate(susceptible, id, doses);
+		totalSusceptible -= given;
+		doses -= given;
+		totalRecovered -= vaccinate(recovered, id, doses);
+		updateActive(id, wasAlive);
+	}
+
+	private double vaccinate(double[] compartment, int id, double doses) {
+		double given = Math.min(doses, compartment[id]);
+		compartment[id] -= given;
+		vaccinated[id] += given;
+		return given;
+	}
+
+	public void setInfected(int id, boolean infected) {
+		if (infectedFlag[id] != infected) infectedCountryCount += infected ? 1 : -1;
+		infectedFlag[id] = infected;
+		if (infected && this.infected[id] < 1 && susceptible[id] >= 1) {
+			boolean wasAlive = isActive(id);
+			susceptible[id] -= 1;
+			this.infected[id] += 1;
+			totalSusceptible -= 1;
+			totalInfected += 1;
+			updateActive(id, wasAlive);
+		}
+	}
+
+	// Infected travellers arriving from elsewhere; they take the place of susceptible residents
+	// so the country's population stays fixed
+	public void importCases(int id, double cases) {
+		boolean wasAlive = isActive(id);
+		double moved = Math.min(cases, susceptible[id]);
+		susceptible[id] -= moved;
+		infected[id] += moved;
+		totalSusceptible -= moved;
+		totalInfected += moved;
+		updateActive(id, wasAlive);
+	}
+
+	public void setVaccinated(int id, boolean vaccinated) {
+		vaccinatedFlag[id] = vaccinated;
+		if (vaccinated && this.vaccinated[id] < 1) {
+			// The first dose, which updateVaccination scales up from, goes to a susceptible resident.
+			// Without one left it goes to anyone unvaccinated, or vaccination would never start.
+			double doses = 1 - this.vaccinated[id];
+			double given = vaccinate(susceptible, id, doses);
+			totalSusceptible -= given;
+			if (given < doses) giveDoses(id, doses - given);
+		}
+	}
+
+	private boolean isActive(int id) {
+		return exposed[id] + infected[id] >= EXTINCTION_THRESHOLD;
+	}
+
+	private void updateActive(int id, boolean wasActive) {
+		boolean active = isActive(id);
+		if (active != wasActive) activeCount += active ? 1 : -1;
+	}
+
+	// Transmission rate per country: the global rate, scaled by the country's own susceptibility
+	public void setTransmissionRate(double rate) {
+		for (int id = 0; id < size; id++) {
+			beta[id] = rate * (1 + susceptibility[id]);
+		}
+	}
+
+	public double sumInfected() {
+		return totalInfected;
+	}
+
+	public double sumNormal() {
+		return totalSusceptible + totalExposed + totalRecovered;
+	}
+
+	public double sumReached() {
+		return totalInfected + totalRecovered;
+	}
+
+	public double sumTotal() {
+		return totalPopulation;
+	}
+
+	public boolean hasInfections() {
+		return activeCount > 0;
+	}
+
+	public boolean hasInfectedCountry() {
+		return infectedCountryCount > 0;
+	}
+
+	// Raw compartments for GridModel, which derives the country totals from its cells
+	void setCompartments(int id, double susceptible, double exposed, double infected, double recovered) {
+		boolean wasAlive = isActive(id);
+		totalSusceptible += susceptible - this.susceptible[id];
+		totalExposed += exposed - this.exposed[id];
+		totalInfected += infected - this.infected[id];
+		totalRecovered += recovered - this.recovered[id];
+		this.susceptible[id] = susceptible;
+		this.exposed[id] = exposed;
+		this.infected[id] = infected;
+		this.recovered[id] = recovered;
+		updateActive(id, wasAlive);
+	}
+
+	void copyTo(GameSnapshot.Builder snapshot) {
+		snapshot.countries(size);
+		System.arraycopy(susceptible, 0, snapshot.susceptible, 0, size);
+		System.arraycopy(exposed, 0, snapshot.exposed, 0, size);
+		System.arraycopy(infected, 0, snapshot.infected, 0, size);
+		System.arraycopy(recovered, 0, snapshot.recovered, 0, size);
+		System.arraycopy(vaccinated, 0, snapshot.vaccinated, 0, size);
+		System.arraycopy(infectedFlag, 0, snapshot.infectedFlags, 0, size);
+		System.arraycopy(vaccinatedFlag, 0, snapshot.vaccinatedFlags, 0, size);
+		snapshot.totals[0] = totalSusceptible;
+		snapshot.totals[1] = totalExposed;
+		snapshot.totals[2] = totalInfected;
+		snapshot.totals[3] = totalRecovered;
+	}
+
+	// Goes through the same setters as the game so the running totals stay consistent
+	void restore(GameSnapshot snapshot) {
+		for (int id = 0; id < size; id++) {
+			setCompartments(id, snapshot.susceptible[id], snapshot.exposed[id], snapshot.infected[id], snapshot.recovered[id]);
+			vaccinated[id] = snapshot.vaccinated[id];
+			if (snapshot.infectedFlags[id] != infectedFlag[id]) infectedCountryCount += snapshot.infectedFlags[id] ? 1 : -1;
+			infectedFlag[id] = snapshot.infectedFlags[id];
+			vaccinatedFlag[id] = snapshot.vaccinatedFlags[id];
+		}
+		totalSusceptible = snapshot.totals[0];
+		totalExposed = snapshot.totals[1];
+		totalInfected = snapshot.totals[2];
+		totalRecovered = snapshot.totals[3];
+	}
+
+	double[] susceptibleArray() {
+		return susceptible;
+	}
+
+	double[] exposedArray() {
+		return exposed;
+	}
+
+	double[] infectedArray() {
+		return infected;
+	}
+
+	double[] recoveredArray() {
+		return recovered;
+	}
+
+	double[] vaccinatedArray() {
+		return vaccinated;
+	}
+
+	double[] populationArray() {
+		return population;
+	}
+
+	double[] areaArray() {
+		return area;
+	}
+
+	boolean[] infectedFlags() {
+		return infectedFlag;
+	}
+
+	boolean[] vaccinatedFlags() {
+		return vaccinatedFlag;
+	}
+
+	double[] susceptibilityArray() {
+		return susceptibility;
+	}
+
+	double[] betaArray() {
+		return beta;
+	}
+
+	double[] sigmaArray() {
+		return sigma;
+	}
+
+	double[] gammaArray() {
+		return gamma;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isInfected(int id) {
+		return infectedFlag[id];
+	}
+
+	public boolean isVaccinated(int id) {
+		return vaccinatedFlag[id];
+	}
+
+	private double getUnvaccinated(int id) {
+		return susceptible[id] + exposed[id] + infected[id] + recovered[id];
+	}
+
+	public long getNormal(int id) {
+		return Math.round(susceptible[id] + exposed[id] + recovered[id]);
+	}
+
+	public long getSusceptible(int id) {
+		return Math.round(susceptible[id]);
+	}
+
+	public long getExposed(int id) {
+		return Math.round(exposed[id]);
+	}
+
+	public long getInfected(int id) {
+		return Math.round(infected[id]);
+	}
+
+	public long getRecovered(int id) {
+		return Math.round(recovered[id]);
+	}
+
+	public long getVaccinated(int id) {
+		return Math.round(vaccinated[id]);
+	}
+
+	public long getTotal(int id) {
+		return Math.round(population[id]);
+	}
+
+	public double getBeta(int id) {
+		return beta[id];
+	}
+
+	public double getSigma(int id) {
+		return sigma[id];
+	}
+
+	public double getGamma(int id) {
+		return gamma[id];
+	}
+
+	public double getArea(int id) {
+		return area[id];
+	}
+}
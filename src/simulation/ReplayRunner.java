@@ -0,0 +1,58 @@
+package simulation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class ReplayRunner {
+	private static final String USAGE = String.join("\n",
+			"Usage: --replay FILE [options]",
+			"  --world FILE        world CSV the session was played on (default worlds/default.csv)",
+			"  --max-time SECONDS  game time to run a log without an end marker for (default 7200)");
+
+	public static void main(String[] args) throws IOException {
+		Path logPath = null;
+		Path worldPath = null;
+		long maxTicks = 7200;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--world" -> worldPath = Paths.get(args[++i]);
+					case "--max-time" -> maxTicks = Long.parseLong(args[++i]) * 1000 / GameEngine.TICK_MILLIS;
+					default -> {
+						if (logPath != null || args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+						logPath = Paths.get(args[i]);
+					}
+				}
+			}
+			if (logPath == null) throw new IllegalArgumentException("No input log given");
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		InputLog log = InputLog.read(logPath);
+		World world = worldPath == null ? World.loadDefault() : World.load(worldPath);
+
+		long startNanos = System.nanoTime();
+		GameEngine engine = log.replay(world, maxTicks);
+		double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+		System.out.printf("%s: %s, seed %d, %d actions%n", logPath, log.getDifficulty(), log.getSeed(), log.size());
+		System.out.printf("  Reached %ds of game time, %s, score %d, in %.2fs wall%n",
+				engine.getElapsedMillis() / 1000, engine.getOutcome(), engine.getScore(), wallSeconds);
+
+		if (!log.isEnded()) {
+			System.out.println("  Log has no end marker; nothing to compare against");
+		} else if (engine.getElapsedTicks() == log.getEndTick() && InputLog.fingerprint(engine) == log.getEndFingerprint()) {
+			System.out.println("  Final state matches the recording");
+		} else {
+			long endSeconds = log.getEndTick() * GameEngine.TICK_MILLIS / 1000;
+			System.out.println("  Final state DIFFERS from the recording, which ended at " + endSeconds + "s");
+			System.exit(1);
+		}
+	}
+}
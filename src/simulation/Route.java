@@ -0,0 +1,41 @@
+package simulation;
+
+public class Route {
+	private final int id;
+	private final TransportMode mode;
+	private final CountryState origin;
+	private final CountryState destination;
+	private final double distance;
+
+	public Route(int id, TransportMode mode, CountryState origin, CountryState destination, double distance) {
+		this.id = id;
+		this.mode = mode;
+		this.origin = origin;
+		this.destination = destination;
+		this.distance = distance;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public TransportMode getMode() {
+		return mode;
+	}
+
+	public String getType() {
+		return mode.getName();
+	}
+
+	public CountryState getOrigin() {
+		return origin;
+	}
+
+	public CountryState getDestination() {
+		return destination;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+}
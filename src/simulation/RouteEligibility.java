@@ -0,0 +1,172 @@
+package simulation;
+
+import java.util.BitSet;
+import java.util.List;
+
+// Which routes are open, kept as one bitset per transport mode. A route only changes
+// state when one of its two countries crosses a threshold or a global rule changes,
+// so those are the only times its bit is recomputed.
+public class RouteEligibility {
+	// Airline infection levels: open, open only with rapid testing, closed
+	private static final byte CLEAR = 0;
+	private static final byte ELEVATED = 1;
+	private static final byte HIGH = 2;
+	private static final double ELEVATED_INFECTION = 0.2;
+	private static final double HIGH_INFECTION = 0.25;
+	private static final double TRAIN_DENSITY_LIMIT = 700;
+
+	private final RouteGraph routes;
+	private final List<CountryState> countries;
+	private final BitSet[] open;
+	private final byte[] infectionLevel;
+	private final boolean[] infected;
+	private final boolean[] dense;
+	private final boolean[] dirty;
+	private final int[] dirtyCountries;
+	private int dirtyCount = 0;
+	private boolean rebuildAll = true;
+	private boolean infectionFreeZones = false;
+	private boolean rapidTesting = false;
+	private boolean vaccinePriority = false;
+	private boolean awarenessLockdown = false;
+
+	public RouteEligibility(RouteGraph routes, List<CountryState> countries) {
+		this.routes = routes;
+		this.countries = countries;
+		int countryCount = countries.size();
+
+		open = new BitSet[TransportMode.values().length];
+		for (int mode = 0; mode < open.length; mode++) {
+			open[mode] = new BitSet(routes.size());
+		}
+		infectionLevel = new byte[countryCount];
+		infected = new boolean[countryCount];
+		dense = new boolean[countryCount];
+		dirty = new boolean[countryCount];
+		dirtyCountries = new int[countryCount];
+
+		for (int c = 0; c < countryCount; c++) {
+			sample(c);
+		}
+	}
+
+	public boolean isOpen(int route) {
+		applyChanges();
+		return open[routes.getMode(route).ordinal()].get(route);
+	}
+
+	// Read-only by convention; the set is updated in place
+	public BitSet getOpenRoutes(TransportMode mode) {
+		applyChanges();
+		return open[mode.ordinal()];
+	}
+
+	public boolean isInfectionFreeZones() {
+		return infectionFreeZones;
+	}
+
+	public boolean isRapidTesting() {
+		return rapidTesting;
+	}
+
+	public boolean isVaccinePriority() {
+		return vaccinePriority;
+	}
+
+	public void setInfectionFreeZones(boolean infectionFreeZones) {
+		if (this.infectionFreeZones != infectionFreeZones) rebuildAll = true;
+		this.infectionFreeZones = infectionFreeZones;
+	}
+
+	public void setRapidTesting(boolean rapidTesting) {
+		if (this.rapidTesting != rapidTesting) rebuildAll = true;
+		this.rapidTesting = rapidTesting;
+	}
+
+	public void setVaccinePriority(boolean vaccinePriority) {
+		if (this.vaccinePriority != vaccinePriority) rebuildAll = true;
+		this.vaccinePriority = vaccinePriority;
+	}
+
+	public void setAwarenessLockdown(boolean awarenessLockdown) {
+		if (this.awarenessLockdown != awarenessLockdown) rebuildAll = true;
+		this.awarenessLockdown = awarenessLockdown;
+	}
+
+	public void refreshAll() {
+		for (int c = 0; c < infected.length; c++) {
+			refresh(c);
+		}
+	}
+
+	// Queues the country's routes only when it has crossed one of the thresholds
+	public void refresh(int country) {
+		byte level = infectionLevel[country];
+		boolean wasInfected = infected[country];
+		boolean wasDense = dense[country];
+		sample(country);
+
+		if (!dirty[country] && (level != infectionLevel[country] || wasInfected != infected[country] || wasDense != dense[country])) {
+			dirty[country] = true;
+			dirtyCountries[dirtyCount++] = country;
+		}
+	}
+
+	private void sample(int country) {
+		CountryState state = countries.get(country);
+		double infection = (double) state.getInfectedPopulation() / state.getNormalPopulation();
+		infectionLevel[country] = infection > HIGH_INFECTION ? HIGH : infection > ELEVATED_INFECTION ? ELEVATED : CLEAR;
+		infected[country] = state.isInfected();
+		dense[country] = state.getPopulationDensity() > TRAIN_DENSITY_LIMIT;
+	}
+
+	private void applyChanges() {
+		if (rebuildAll) {
+			for (int route = 0; route < routes.size(); route++) {
+				update(route);
+			}
+			rebuildAll = false;
+		} else {
+			for (int i = 0; i < dirtyCount; i++) {
+				int country = dirtyCountries[i];
+				for (int route = routes.getFirstRoute(country); route < routes.getRouteEnd(country); route++) {
+					update(route);
+				}
+				for (int index = routes.getFirstIncoming(country); index < routes.getIncomingEnd(country); index++) {
+					update(routes.getIncomingRoute(index));
+				}
+			}
+		}
+
+		for (int i = 0; i < dirtyCount; i++) {
+			dirty[dirtyCountries[i]] = false;
+		}
+		dirtyCount = 0;
+	}
+
+	private void update(int route) {
+		TransportMode mode = routes.getMode(route);
+		open[mode.ordinal()].set(route, evaluate(route, mode));
+	}
+
+	private boolean evaluate(int route, TransportMode mode) {
+		int origin = routes.getOrigin(route);
+		int destination = routes.getDestination(route);
+
+		if (infectionFreeZones && !infected[origin] && !infected[destination]) return true;
+
+		if (awarenessLockdown && !vaccinePriority) return false;
+
+		if (vaccinePriority) return true;
+
+		// Infection Level Restriction with Rapid Testing
+		if (mode == TransportMode.AIRLINE && (infectionLevel[origin] != CLEAR || infectionLevel[destination] != CLEAR)) {
+			return rapidTesting && infectionLevel[origin] != HIGH && infectionLevel[destination] != HIGH;
+		}
+
+		// Population Density Restriction
+		if (mode == TransportMode.TRAIN && (dense[origin] || dense[destination])) return false;
+
+		return true;
+	}
+}
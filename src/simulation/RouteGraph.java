@@ -0,0 +1,201 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RouteGraph {
+	private static final byte AIRLINE = (byte) TransportMode.AIRLINE.ordinal();
+	private static final byte SHIP = (byte) TransportMode.SHIP.ordinal();
+	private static final byte TRAIN = (byte) TransportMode.TRAIN.ordinal();
+
+	// Compressed sparse rows: the routes leaving country c are ids offsets[c] until offsets[c + 1]
+	private final int[] offsets;
+	private final int[] origins;
+	private final int[] destinations;
+	private final byte[] modes;
+	private final double[] distances;
+	// The same routes grouped by destination: incoming[incomingOffsets[c]] until incomingOffsets[c + 1]
+	private final int[] incomingOffsets;
+	private final int[] incoming;
+
+	private RouteGraph(int[] offsets, int[] origins, int[] destinations, byte[] modes, double[] distances) {
+		this.offsets = offsets;
+		this.origins = origins;
+		this.destinations = destinations;
+		this.modes = modes;
+		this.distances = distances;
+
+		int countryCount = offsets.length - 1;
+		incomingOffsets = new int[countryCount + 1];
+		for (int destination : destinations) {
+			incomingOffsets[destination + 1]++;
+		}
+		for (int c = 0; c < countryCount; c++) {
+			incomingOffsets[c + 1] += incomingOffsets[c];
+		}
+		incoming = new int[destinations.length];
+		int[] next = Arrays.copyOf(incomingOffsets, countryCount);
+		for (int route = 0; route < destinations.length; route++) {
+			incoming[next[destinations[route]]++] = route;
+		}
+	}
+
+	public static RouteGraph build(List<CountryState> countries) {
+		int countryCount = countries.size();
+		String[] names = new String[countryCount];
+		String[] continents = new String[countryCount];
+		int[] x = new int[countryCount];
+		int[] y = new int[countryCount];
+		for (int i = 0; i < countryCount; i++) {
+			CountryState country = countries.get(i);
+			names[i] = country.getName();
+			continents[i] = country.getContinent();
+			x[i] = country.getX();
+			y[i] = country.getY();
+		}
+		return build(names, continents, x, y);
+	}
+
+	// Routes depend only on the map, so one graph can be built ahead of time and shared by every game on it
+	public static RouteGraph build(World world) {
+		int countryCount = world.size();
+		String[] names = new String[countryCount];
+		String[] continents = new String[countryCount];
+		int[] x = new int[countryCount];
+		int[] y = new int[countryCount];
+		for (int i = 0; i < countryCount; i++) {
+			names[i] = world.getName(i);
+			continents[i] = world.getContinent(i);
+			x[i] = world.getX(i);
+			y[i] = world.getY(i);
+		}
+		return build(names, continents, x, y);
+	}
+
+	private static RouteGraph build(String[] names, String[] continents, int[] x, int[] y) {
+		int countryCount = names.length;
+		int[] nameRank = rankNames(names);
+		int[] continentId = new int[countryCount];
+		Map<String, Integer> continentIds = new HashMap<>();
+		for (int i = 0; i < countryCount; i++) {
+			continentId[i] = continentIds.computeIfAbsent(continents[i], c -> continentIds.size());
+		}
+
+		int[] offsets = new int[countryCount + 1];
+		int capacity = Math.max(16, countryCount * 2);
+		int[] origins = new int[capacity];
+		int[] destinations = new int[capacity];
+		byte[] modes = new byte[capacity];
+		int size = 0;
+
+		for (int i = 0; i < countryCount; i++) {
+			offsets[i] = size;
+			for (int j = 0; j < countryCount; j++) {
+				if (i == j) continue;
+
+				// Each pair can add up to three routes
+				if (size + 3 > origins.length) {
+					capacity = origins.length * 2;
+					origins = Arrays.copyOf(origins, capacity);
+					destinations = Arrays.copyOf(destinations, capacity);
+					modes = Arrays.copyOf(modes, capacity);
+				}
+
+				boolean sameContinent = continentId[i] == continentId[j];
+
+				// Plane: (A -> B or B -> A)
+				if (nameRank[i] < nameRank[j]) {
+					origins[size] = i;
+					destinations[size] = j;
+					modes[size++] = AIRLINE;
+
+					// Ship: (A -> B or B -> A)
+					if (!sameContinent) {
+						origins[size] = i;
+						destinations[size] = j;
+						modes[size++] = SHIP;
+					}
+				}
+
+				// Train: (A -> B and B -> A)
+				if (sameContinent) {
+					origins[size] = i;
+					destinations[size] = j;
+					modes[size++] = TRAIN;
+				}
+			}
+		}
+		offsets[countryCount] = size;
+
+		double[] distances = new double[size];
+		for (int id = 0; id < size; id++) {
+			int dx = x[destinations[id]] - x[origins[id]];
+			int dy = y[destinations[id]] - y[origins[id]];
+			distances[id] = Math.sqrt(dx * dx + dy * dy);
+		}
+
+		return new RouteGraph(offsets, Arrays.copyOf(origins, size), Arrays.copyOf(destinations, size),
+				Arrays.copyOf(modes, size), distances);
+	}
+
+	// Replaces per-pair String.compareTo with an int comparison of each name's sorted position
+	private static int[] rankNames(String[] names) {
+		Integer[] order = new Integer[names.length];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+
+		int[] rank = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			// Equal names keep the same rank so neither direction gets an airline, as before
+			boolean tied = i > 0 && names[order[i]].equals(names[order[i - 1]]);
+			rank[order[i]] = tied ? rank[order[i - 1]] : i;
+		}
+		return rank;
+	}
+
+	public int size() {
+		return modes.length;
+	}
+
+	public int getCountryCount() {
+		return offsets.length - 1;
+	}
+
+	public int getFirstRoute(int country) {
+		return offsets[country];
+	}
+
+	public int getRouteEnd(int country) {
+		return offsets[country + 1];
+	}
+
+	public int getFirstIncoming(int country) {
+		return incomingOffsets[country];
+	}
+
+	public int getIncomingEnd(int country) {
+		return incomingOffsets[country + 1];
+	}
+
+	public int getIncomingRoute(int index) {
+		return incoming[index];
+	}
+
+	public int getOrigin(int route) {
+		return origins[route];
+	}
+
+	public int getDestination(int route) {
+		return destinations[route];
+	}
+
+	public TransportMode getMode(int route) {
+		return TransportMode.of(modes[route]);
+	}
+
+	public double getDistance(int route) {
+		return distances[route];
+	}
+}
@@ -0,0 +1,393 @@
+package simulation;
+
+import utilities.GameTimerManager;
+import utilities.Metrics;
+import utilities.TimingWheel;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Runs many headless games in one JVM on a fixed pool of threads. One scheduler thread hands each
+// session to the pool when its tick is due; the session runs its queued commands and the tick and
+// is handed back, so it is never on two threads at once and never owns a thread while idle. The
+// CPU time and bytes allocated while a session runs are charged to that session. Allocation is a
+// running total, garbage included, so it measures churn rather than the memory a session holds.
+public class SessionHost implements AutoCloseable {
+	private static final String USAGE = String.join("\n",
+			"Usage: --host [options]",
+			"  --sessions N        games to host at once (default 200)",
+			"  --threads T         pool threads shared by every session (default: all cores)",
+			"  --difficulty NAME   Easy, Medium or Hard (default Medium)",
+			"  --seed S            base seed, drawn per session like --batch (default 1)",
+			"  --speed X           game seconds per wall second, or Max (default Max)",
+			"  --max-time SECONDS  game time after which a session is stopped (default 7200)",
+			"  --world FILE        world CSV every session plays on (default worlds/default.csv)",
+			"  --idle              no player actions; by default pickups are collected and upgrades bought",
+			"The report charges each session its CPU time and the bytes it allocated over the whole run.",
+			"Allocation counts garbage too: it is churn, not the memory a session keeps.");
+	// Ticks a session runs per hand-off when uncapped, so the pool's queueing cost is spread over several
+	private static final int UNCAPPED_TICKS_PER_STEP = 64;
+	// Spreads the sessions' first deadlines evenly over a tick, however many there are
+	private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final ExecutorService pool;
+	// Null when uncapped: sessions then hand themselves back to the pool as soon as a step ends
+	private final GameTimerManager scheduler;
+	private final long maxTicks;
+	private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final Metrics.Histogram stepTimes = Metrics.getInstance().histogram("host.step");
+	private final Metrics.Counter tickCount = Metrics.getInstance().counter("host.ticks");
+	private final Metrics.Counter lateTickCount = Metrics.getInstance().counter("host.lateTicks");
+	private final LongSupplier sessionGauge = () -> sessions.size();
+	private volatile boolean running = true;
+
+	// timeScale is game seconds per wall second, or GameTimerManager.UNCAPPED
+	public SessionHost(int threads, double timeScale, long maxTicks) {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "session-host-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.maxTicks = maxTicks;
+		if (Double.isInfinite(timeScale)) {
+			scheduler = null;
+		} else {
+			scheduler = new GameTimerManager();
+			scheduler.setTimeScale(timeScale);
+		}
+		enableAccounting();
+		Metrics.getInstance().gauge("host.sessions", sessionGauge);
+	}
+
+	private static void enableAccounting() {
+		try {
+			if (THREADS.isThreadCpuTimeSupported()) THREADS.setThreadCpuTimeEnabled(true);
+			if (THREADS instanceof com.sun.management.ThreadMXBean allocation && allocation.isThreadAllocatedMemorySupported()) {
+				allocation.setThreadAllocatedMemoryEnabled(true);
+			}
+		} catch (UnsupportedOperationException | SecurityException e) {
+			// Sessions are then charged nothing rather than the host failing
+		}
+	}
+
+	// Zero where the JVM cannot measure it, as for threadAllocatedBytes()
+	private static long threadCpuNanos() {
+		return THREADS.isCurrentThreadCpuTimeSupported() ? Math.max(0, THREADS.getCurrentThreadCpuTime()) : 0;
+	}
+
+	private static long threadAllocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean allocation) {
+			return Math.max(0, allocation.getCurrentThreadAllocatedBytes());
+		}
+		return 0;
+	}
+
+	public Session open(GameEngine engine) {
+		return open(engine, null);
+	}
+
+	// The engine belongs to the host from here on. The bot, if any, is called on the session's
+	// thread before every tick and may change the engine directly, as may the engine's listener.
+	public Session open(GameEngine engine, Consumer<GameEngine> bot) {
+		if (!running) throw new IllegalStateException("Session host is closed");
+
+		Session session = new Session(nextId.getAndIncrement(), engine, bot);
+		sessions.put(session.id, session);
+		if (scheduler == null) {
+			pool.execute(session::step);
+		} else {
+			long offset = (long) (session.id * GOLDEN_RATIO_FRACTION % 1 * GameEngine.TICK_MILLIS);
+			session.timeout = scheduler.scheduleAtFixedRate(session::tickDue, offset, GameEngine.TICK_MILLIS);
+			// The first tick may already have run and ended the game before the field was set,
+			// in which case finish() found nothing to cancel
+			if (session.finished.isDone()) session.timeout.cancel();
+		}
+		return session;
+	}
+
+	public List<Session> getSessions() {
+		return new ArrayList<>(sessions.values());
+	}
+
+	// Stops every session still running; their futures complete with the state they reached
+	@Override
+	public void close() {
+		running = false;
+		if (scheduler != null) scheduler.shutdown();
+		for (Session session : getSessions()) {
+			session.close();
+		}
+		pool.shutdown();
+		try {
+			pool.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		Metrics.getInstance().removeGauge("host.sessions", sessionGauge);
+	}
+
+	public class Session {
+		private final int id;
+		private final GameEngine engine;
+		private final Consumer<GameEngine> bot;
+		private final Queue<Consumer<GameEngine>> commands = new ConcurrentLinkedQueue<>();
+		// Ticks the scheduler has called for that have not run yet
+		private final AtomicInteger due = new AtomicInteger();
+		private final CompletableFuture<Session> finished = new CompletableFuture<>();
+		private volatile TimingWheel.Timeout timeout;
+		private volatile GameView view;
+		private volatile boolean closed = false;
+		// Written only by the step in progress, which the pool hands from thread to thread in turn
+		private volatile long ticks = 0;
+		private volatile long lateTicks = 0;
+		private volatile long cpuNanos = 0;
+		private volatile long allocatedBytes = 0;
+
+		private Session(int id, GameEngine engine, Consumer<GameEngine> bot) {
+			this.id = id;
+			this.engine = engine;
+			this.bot = bot;
+			this.view = engine.view();
+		}
+
+		// Any thread; runs on the session's thread before its next tick
+		public void post(Consumer<GameEngine> command) {
+			commands.add(command);
+		}
+
+		// Scheduler thread, once per tick period. Only the first tick that falls due hands the
+		// session to the pool; later ones while it waits are caught up by the same step.
+		private void tickDue() {
+			if (due.getAndIncrement() == 0) pool.execute(this::step);
+		}
+
+		private void step() {
+			if (finished.isDone()) return;
+
+			long cpuStart = threadCpuNanos();
+			long allocatedStart = threadAllocatedBytes();
+			long start = System.nanoTime();
+			int pending = scheduler == null ? UNCAPPED_TICKS_PER_STEP : due.get();
+			int ran = 0;
+			RuntimeException error = null;
+			try {
+				while (ran < pending && !closed) {
+					Consumer<GameEngine> command;
+					while ((command = commands.poll()) != null) {
+						command.accept(engine);
+					}
+					if (bot != null) bot.accept(engine);
+					GameEngine.Outcome outcome = engine.tick();
+					ran++;
+					if (outcome != GameEngine.Outcome.RUNNING || engine.getElapsedTicks() >= maxTicks) {
+						closed = true;
+					}
+				}
+				view = engine.view();
+			} catch (RuntimeException e) {
+				error = e;
+			} finally {
+				stepTimes.recordSince(start);
+				tickCount.add(ran);
+				ticks += ran;
+				cpuNanos += threadCpuNanos() - cpuStart;
+				allocatedBytes += threadAllocatedBytes() - allocatedStart;
+				if (scheduler != null && ran > 1) {
+					lateTicks += ran - 1;
+					lateTickCount.add(ran - 1);
+				}
+			}
+
+			if (error != null || closed) {
+				finish(error);
+			} else if (scheduler == null || due.addAndGet(-ran) > 0) {
+				try {
+					pool.execute(this::step);
+				} catch (RejectedExecutionException e) {
+					// The host closed while this step ran
+					finish(null);
+				}
+			}
+		}
+
+		// Completes before reading the timeout, while open() sets the timeout before checking for
+		// completion, so whichever runs second cancels it
+		private void finish(Throwable error) {
+			sessions.remove(id);
+			if (error == null) {
+				finished.complete(this);
+			} else {
+				finished.completeExceptionally(error);
+			}
+			TimingWheel.Timeout scheduled = timeout;
+			if (scheduled != null) scheduled.cancel();
+		}
+
+		// Stops the session at its next step, or the one in progress; completes whenFinished()
+		public void close() {
+			closed = true;
+			// An uncapped session always has its next step queued. A scheduled one may be waiting for
+			// its deadline, so a step is queued now, unless one already is.
+			if (scheduler != null && due.getAndIncrement() == 0) {
+				try {
+					pool.execute(this::step);
+				} catch (RuntimeException e) {
+					finish(null);
+				}
+			}
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		// Completes once the game is won or lost, reaches the host's time limit or is closed
+		public CompletableFuture<Session> whenFinished() {
+			return finished;
+		}
+
+		// Only once whenFinished() has completed; until then the engine is the host's
+		public GameEngine getEngine() {
+			if (!finished.isDone()) throw new IllegalStateException("Session " + id + " is still running");
+			return engine;
+		}
+
+		// As of the last step; safe from any thread
+		public GameView getView() {
+			return view;
+		}
+
+		public long getTicks() {
+			return ticks;
+		}
+
+		// Ticks that ran after their deadline because the pool was busy
+		public long getLateTicks() {
+			return lateTicks;
+		}
+
+		public long getCpuNanos() {
+			return cpuNanos;
+		}
+
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int sessionCount = 200;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String difficulty = "Medium";
+		long seed = 1;
+		double timeScale = GameTimerManager.UNCAPPED;
+		long maxTicks = 7200;
+		Path worldPath = null;
+		boolean autopilot = true;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--sessions" -> sessionCount = Integer.parseInt(args[++i]);
+					case "--threads" -> threads = Integer.parseInt(args[++i]);
+					case "--difficulty" -> difficulty = args[++i];
+					case "--seed" -> seed = Long.parseLong(args[++i]);
+					case "--speed" -> {
+						String speed = args[++i];
+						timeScale = speed.equalsIgnoreCase("Max") ? GameTimerManager.UNCAPPED : Double.parseDouble(speed);
+					}
+					case "--max-time" -> maxTicks = Long.parseLong(args[++i]) * 1000 / GameEngine.TICK_MILLIS;
+					case "--world" -> worldPath = Paths.get(args[++i]);
+					case "--idle" -> autopilot = false;
+					default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		World world = worldPath == null ? World.loadDefault() : World.load(worldPath);
+		// Read-only, so one graph serves every session
+		RouteGraph routes = RouteGraph.build(world);
+		SplittableRandom seeds = new SplittableRandom(seed);
+		List<Session> hosted = new ArrayList<>(sessionCount);
+
+		long startNanos = System.nanoTime();
+		try (SessionHost host = new SessionHost(threads, timeScale, maxTicks)) {
+			for (int i = 0; i < sessionCount; i++) {
+				GameEngine engine = new GameEngine(difficulty, seeds.nextLong(), world, routes);
+				Consumer<GameEngine> bot = autopilot ? BatchRunner.autopilot(engine) : null;
+				engine.infectFirstCountry(BatchRunner.firstCountry(engine));
+				hosted.add(host.open(engine, bot));
+			}
+			CompletableFuture.allOf(hosted.stream().map(Session::whenFinished).toArray(CompletableFuture[]::new)).join();
+		}
+		long wallNanos = System.nanoTime() - startNanos;
+
+		BatchRunner.RunResult[] results = new BatchRunner.RunResult[sessionCount];
+		for (int i = 0; i < sessionCount; i++) {
+			results[i] = BatchRunner.result(hosted.get(i).getEngine());
+		}
+		System.out.print(new BatchRunner.Report(difficulty, seed, autopilot, results, wallNanos).format());
+		System.out.print(accounting(hosted, threads, wallNanos));
+	}
+
+	private static String accounting(List<Session> hosted, int threads, long wallNanos) {
+		long ticks = 0;
+		long late = 0;
+		long cpu = 0;
+		long allocated = 0;
+		for (Session session : hosted) {
+			ticks += session.getTicks();
+			late += session.getLateTicks();
+			cpu += session.getCpuNanos();
+			allocated += session.getAllocatedBytes();
+		}
+		Metrics.Snapshot steps = Metrics.getInstance().histogram("host.step").snapshot();
+
+		StringBuilder report = new StringBuilder(String.format(
+				"  Host           %d sessions on %d threads, %d ticks, %.0f ticks/s, %d late%n" +
+				"  Step           p50 %.1fus  p99 %.1fus  p99.9 %.1fus%n" +
+				"  CPU            %.2fs, %.0f%% of the pool, mean %.1fms per session%n" +
+				"  Allocation     %.1fMB in total, mean %.2fMB per session, %.0f bytes per tick, not retained%n",
+				hosted.size(), threads, ticks, ticks / (wallNanos / 1e9), late,
+				steps.getPercentile(0.5) / 1e3, steps.getPercentile(0.99) / 1e3, steps.getPercentile(0.999) / 1e3,
+				cpu / 1e9, 100.0 * cpu / ((double) wallNanos * threads), cpu / 1e6 / hosted.size(),
+				allocated / 1e6, allocated / 1e6 / hosted.size(), ticks == 0 ? 0 : (double) allocated / ticks));
+
+		List<Session> heaviest = new ArrayList<>(hosted);
+		heaviest.sort(Comparator.comparingLong(Session::getCpuNanos).reversed());
+		report.append("  Heaviest      ");
+		for (Session session : heaviest.subList(0, Math.min(3, heaviest.size()))) {
+			report.append(String.format(" #%d %.1fms CPU %.2fMB allocated %d ticks;", session.getId(),
+					session.getCpuNanos() / 1e6, session.getAllocatedBytes() / 1e6, session.getTicks()));
+		}
+		report.setLength(report.length() - 1);
+		return report.append(String.format("%n")).toString();
+	}
+}
@@ -0,0 +1,104 @@
+package simulation;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Flow-based traffic: every route carries a fixed number of passengers per tick, and the
+// infected among them are drawn in one pass over the open routes instead of per trip.
+public class TrafficModel {
+	// Gravity model: passengers per tick = FLOW_SCALE * sqrt(origin * destination) / distance
+	private static final double FLOW_SCALE = 1e-4;
+	private static final double[] MODE_SHARE = {1.0, 0.3, 0.6};
+	// Routes expecting at least this many cases are sampled by a normal approximation
+	private static final double NORMAL_LIMIT = 10;
+
+	private final RouteGraph routes;
+	private final long[] passengers;
+	private final double[] infectedShare;
+	private final double[] imported;
+	private final BitSet carriedInfection;
+
+	public TrafficModel(RouteGraph routes, List<CountryState> countries) {
+		this.routes = routes;
+		int countryCount = routes.getCountryCount();
+		passengers = new long[routes.size()];
+		infectedShare = new double[countryCount];
+		imported = new double[countryCount];
+		carriedInfection = new BitSet(routes.size());
+
+		for (int route = 0; route < routes.size(); route++) {
+			double origin = countries.get(routes.getOrigin(route)).getTotalPopulation();
+			double destination = countries.get(routes.getDestination(route)).getTotalPopulation();
+			double flow = FLOW_SCALE * Math.sqrt(origin * destination) / Math.max(1, routes.getDistance(route));
+			passengers[route] = Math.max(1, Math.round(flow * MODE_SHARE[routes.getMode(route).ordinal()]));
+		}
+	}
+
+	// Samples this tick's infected travellers on every open route and returns the imported cases per
+	// destination; the array is reused by the next call
+	public double[] sample(List<CountryState> countries, RouteEligibility eligibility, double sanitationEffect, SplittableRandom random) {
+		for (int c = 0; c < infectedShare.length; c++) {
+			CountryState country = countries.get(c);
+			double share = (double) country.getInfectedPopulation() / country.getNormalPopulation() * sanitationEffect;
+			// The same share the single-transport dispatch uses; NaN or negative means nobody can travel infected
+			infectedShare[c] = share > 0 ? Math.min(1, share) : 0;
+			imported[c] = 0;
+		}
+		carriedInfection.clear();
+
+		// Clean origins are skipped wholesale, so the cost follows the routes out of infected countries
+		for (int origin = 0; origin < infectedShare.length; origin++) {
+			double share = infectedShare[origin];
+			if (share == 0) continue;
+
+			// Passengers leaving one origin form a single stream of Bernoulli trials; jumping from one
+			// infected traveller to the next costs one draw per case instead of one per route
+			double logClean = Math.log1p(-share);
+			long gap = geometric(random, logClean);
+
+			for (int route = routes.getFirstRoute(origin); route < routes.getRouteEnd(origin); route++) {
+				if (!eligibility.isOpen(route)) continue;
+
+				long remaining = passengers[route];
+				long cases = 0;
+				if (remaining * share >= NORMAL_LIMIT) {
+					// Busy routes take a normal draw; the stream's gap carries over unchanged since it is memoryless
+					cases = normal(random, remaining, share);
+				} else {
+					while (gap < remaining) {
+						cases++;
+						remaining -= gap + 1;
+						gap = geometric(random, logClean);
+					}
+					gap -= remaining;
+				}
+
+				if (cases > 0) {
+					imported[routes.getDestination(route)] += cases;
+					carriedInfection.set(route);
+				}
+			}
+		}
+		return imported;
+	}
+
+	public boolean carriedInfection(int route) {
+		return carriedInfection.get(route);
+	}
+
+	public long getPassengers(int route) {
+		return passengers[route];
+	}
+
+	// Clean travellers before the next infected one
+	private static long geometric(SplittableRandom random, double logClean) {
+		return (long) (Math.log(1 - random.nextDouble()) / logClean);
+	}
+
+	private static long normal(SplittableRandom random, long trials, double probability) {
+		double mean = trials * probability;
+		long successes = Math.round(mean + Math.sqrt(mean * (1 - probability)) * random.nextGaussian());
+		return Math.max(0, Math.min(trials, successes));
+	}
+}
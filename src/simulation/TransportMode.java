@@ -0,0 +1,23 @@
+package simulation;
+
+public enum TransportMode {
+	AIRLINE("Airline"),
+	SHIP("Ship"),
+	TRAIN("Train");
+
+	// values() clones its array; route lookups index this one instead
+	private static final TransportMode[] MODES = values();
+	private final String name;
+
+	TransportMode(String name) {
+		this.name = name;
+	}
+
+	public static TransportMode of(int ordinal) {
+		return MODES[ordinal];
+	}
+
+	public String getName() {
+		return name;
+	}
+}
@@ -0,0 +1,37 @@
+package simulation;
+
+public class Trip {
+	private final Route route;
+	private final boolean forVaccine;
+	private final boolean infected;
+	private final long departureMillis;
+	private final long arrivalMillis;
+
+	public Trip(Route route, boolean forVaccine, boolean infected, long departureMillis, long arrivalMillis) {
+		this.route = route;
+		this.forVaccine = forVaccine;
+		this.infected = infected;
+		this.departureMillis = departureMillis;
+		this.arrivalMillis = arrivalMillis;
+	}
+
+	public Route getRoute() {
+		return route;
+	}
+
+	public boolean isForVaccine() {
+		return forVaccine;
+	}
+
+	public boolean isInfected() {
+		return infected;
+	}
+
+	public long getDepartureMillis() {
+		return departureMillis;
+	}
+
+	public long getArrivalMillis() {
+		return arrivalMillis;
+	}
+}
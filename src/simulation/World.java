@@ -0,0 +1,350 @@
+package simulation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class World {
+	public static final Path DEFAULT_PATH = Paths.get("worlds", "default.csv");
+	private static final String HEADER = "name,x,y,continent,infectionRate,population,area";
+	private static final int CACHE_MAGIC = 0x41505744; // "APWD"
+	private static final short CACHE_VERSION = 1;
+
+	private final String[] names;
+	private final String[] continents;
+	private final int[] x;
+	private final int[] y;
+	private final double[] infectionRate;
+	private final long[] population;
+	private final double[] area;
+
+	public World(String[] names, String[] continents, int[] x, int[] y, double[] infectionRate, long[] population, double[] area) {
+		this.names = names;
+		this.continents = continents;
+		this.x = x;
+		this.y = y;
+		this.infectionRate = infectionRate;
+		this.population = population;
+		this.area = area;
+	}
+
+	public static World loadDefault() {
+		if (!Files.exists(DEFAULT_PATH)) return builtIn();
+
+		try {
+			return load(DEFAULT_PATH);
+		} catch (IOException | IllegalArgumentException e) {
+			e.printStackTrace();
+			return builtIn();
+		}
+	}
+
+	public static World builtIn() {
+		// Countries with their coordinates, continent assignments, infection rate, and population
+		Object[][] countryData = {
+				{"USA", 50, 100, "North America", 0.12, 331000000, 9833520.0},
+				{"Canada", 150, 50, "North America", 0.08, 38000000, 9984670.0},
+				{"Mexico", 90, 200, "North America", 0.09, 126000000, 1964375.0},
+				{"Brazil", 190, 300, "South America", 0.14, 213000000, 8515767.0},
+				{"UK", 450, 50, "Europe", 0.11, 68000000, 243610.0},
+				{"France", 490, 100, "Europe", 0.1, 65000000, 551695.0},
+				{"Germany", 550, 150, "Europe", 0.07, 83000000, 357022.0},
+				{"India", 640, 300, "Asia", 0.15, 1390000000, 3287263.0},
+				{"China", 680, 200, "Asia", 0.13, 1440000000, 9596961.0},
+				{"Australia", 710, 400, "Australia", 0.06, 26000000, 7692024.0}
+		};
+
+		Builder builder = new Builder(countryData.length);
+		for (Object[] data : countryData) {
+			builder.add((String) data[0], (int) data[1], (int) data[2], (String) data[3],
+					(double) data[4], (int) data[5], (double) data[6]);
+		}
+		return builder.build();
+	}
+
+	// The compiled cache sits next to the CSV, is read in one go on later launches
+	// and is only rebuilt when the CSV's size or timestamp changes
+	public static World load(Path csvPath) throws IOException {
+		Path cachePath = csvPath.resolveSibling(csvPath.getFileName() + ".bin");
+		long sourceSize = Files.size(csvPath);
+		long sourceModified = Files.getLastModifiedTime(csvPath).toMillis();
+
+		if (Files.exists(cachePath)) {
+			World cached = readCache(cachePath, sourceSize, sourceModified);
+			if (cached != null) return cached;
+		}
+
+		World world = parseCsv(csvPath);
+		try {
+			writeCache(world, cachePath, sourceSize, sourceModified);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return world;
+	}
+
+	// Malformed lines are IOExceptions; a file that parses but is no usable world, with no
+	// countries or with two of the same name, is an IllegalArgumentException
+	public static World parseCsv(Path csvPath) throws IOException {
+		Builder builder = new Builder(64);
+		Set<String> names = new HashSet<>();
+
+		try (BufferedReader reader = Files.newBufferedReader(csvPath, StandardCharsets.UTF_8)) {
+			String header = reader.readLine();
+			if (header == null || !header.replace(" ", "").equalsIgnoreCase(HEADER)) {
+				throw new IOException(csvPath + ": expected header \"" + HEADER + "\"");
+			}
+
+			String line;
+			int lineNumber = 1;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank() || line.startsWith("#")) continue;
+
+				List<String> fields = splitCsvLine(line);
+				if (fields.size() != 7) {
+					throw new IOException(csvPath + ":" + lineNumber + ": expected 7 fields but found " + fields.size());
+				}
+				if (!names.add(fields.get(0))) {
+					throw new IllegalArgumentException(csvPath + ":" + lineNumber + ": duplicate country \"" + fields.get(0) + "\"");
+				}
+
+				try {
+					builder.add(fields.get(0), Integer.parseInt(fields.get(1)), Integer.parseInt(fields.get(2)), fields.get(3),
+							Double.parseDouble(fields.get(4)), Long.parseLong(fields.get(5)), Double.parseDouble(fields.get(6)));
+				} catch (IllegalArgumentException e) {
+					throw new IOException(csvPath + ":" + lineNumber + ": " + e.getMessage(), e);
+				}
+			}
+		}
+
+		if (names.isEmpty()) throw new IllegalArgumentException(csvPath + ": no countries");
+		return builder.build();
+	}
+
+	private static List<String> splitCsvLine(String line) {
+		List<String> fields = new ArrayList<>(7);
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString().trim());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString().trim());
+		return fields;
+	}
+
+	// Read into the heap rather than mapped: every value is copied into arrays anyway, and a live
+	// mapping would keep Windows from replacing the file when the cache is rebuilt
+	private static World readCache(Path cachePath, long sourceSize, long sourceModified) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cachePath));
+		try {
+			if (buffer.remaining() < 26 || buffer.getInt() != CACHE_MAGIC || buffer.getShort() != CACHE_VERSION
+					|| buffer.getLong() != sourceSize || buffer.getLong() != sourceModified) {
+				return null;
+			}
+
+			int count = buffer.getInt();
+			String[] continentTable = new String[buffer.getInt()];
+			for (int i = 0; i < continentTable.length; i++) {
+				continentTable[i] = readString(buffer);
+			}
+
+			String[] names = new String[count];
+			String[] continents = new String[count];
+			int[] x = new int[count];
+			int[] y = new int[count];
+			double[] infectionRate = new double[count];
+			long[] population = new long[count];
+			double[] area = new double[count];
+
+			for (int i = 0; i < count; i++) names[i] = readString(buffer);
+			for (int i = 0; i < count; i++) continents[i] = continentTable[buffer.getInt()];
+			buffer.asIntBuffer().get(x);
+			buffer.position(buffer.position() + count * Integer.BYTES);
+			buffer.asIntBuffer().get(y);
+			buffer.position(buffer.position() + count * Integer.BYTES);
+			buffer.asDoubleBuffer().get(infectionRate);
+			buffer.position(buffer.position() + count * Double.BYTES);
+			buffer.asLongBuffer().get(population);
+			buffer.position(buffer.position() + count * Long.BYTES);
+			buffer.asDoubleBuffer().get(area);
+
+			return new World(names, continents, x, y, infectionRate, population, area);
+		} catch (RuntimeException e) {
+			// A truncated or foreign file is treated like a stale cache and rebuilt from the CSV
+			return null;
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeCache(World world, Path cachePath, long sourceSize, long sourceModified) throws IOException {
+		Map<String, Integer> continentIndex = new LinkedHashMap<>();
+		for (String continent : world.continents) {
+			continentIndex.putIfAbsent(continent, continentIndex.size());
+		}
+
+		Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+		try {
+			try (OutputStream file = Files.newOutputStream(tempPath);
+			     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+				out.writeInt(CACHE_MAGIC);
+				out.writeShort(CACHE_VERSION);
+				out.writeLong(sourceSize);
+				out.writeLong(sourceModified);
+				out.writeInt(world.size());
+
+				out.writeInt(continentIndex.size());
+				for (String continent : continentIndex.keySet()) writeString(out, continent);
+				for (String name : world.names) writeString(out, name);
+				for (String continent : world.continents) out.writeInt(continentIndex.get(continent));
+				for (int value : world.x) out.writeInt(value);
+				for (int value : world.y) out.writeInt(value);
+				for (double value : world.infectionRate) out.writeDouble(value);
+				for (long value : world.population) out.writeLong(value);
+				for (double value : world.area) out.writeDouble(value);
+			}
+			try {
+				Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			// Only left behind when writing or moving failed
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) throw new IOException("String too long for world cache: " + value);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public String getName(int id) {
+		return names[id];
+	}
+
+	public String getContinent(int id) {
+		return continents[id];
+	}
+
+	public int getX(int id) {
+		return x[id];
+	}
+
+	public int getY(int id) {
+		return y[id];
+	}
+
+	public double getInfectionRate(int id) {
+		return infectionRate[id];
+	}
+
+	public long getPopulation(int id) {
+		return population[id];
+	}
+
+	public double getArea(int id) {
+		return area[id];
+	}
+
+	public static class Builder {
+		private int size = 0;
+		private String[] names;
+		private String[] continents;
+		private int[] x;
+		private int[] y;
+		private double[] infectionRate;
+		private long[] population;
+		private double[] area;
+
+		public Builder(int expectedSize) {
+			int capacity = Math.max(1, expectedSize);
+			names = new String[capacity];
+			continents = new String[capacity];
+			x = new int[capacity];
+			y = new int[capacity];
+			infectionRate = new double[capacity];
+			population = new long[capacity];
+			area = new double[capacity];
+		}
+
+		public Builder add(String name, int x, int y, String continent, double infectionRate, long population, double area) {
+			if (name.isEmpty()) throw new IllegalArgumentException("Country name must not be empty");
+			if (population <= 0) throw new IllegalArgumentException(name + ": population must be positive");
+			if (area <= 0) throw new IllegalArgumentException(name + ": area must be positive");
+
+			if (size == names.length) grow();
+			this.names[size] = name;
+			this.continents[size] = continent.intern();
+			this.x[size] = x;
+			this.y[size] = y;
+			this.infectionRate[size] = infectionRate;
+			this.population[size] = population;
+			this.area[size] = area;
+			size++;
+			return this;
+		}
+
+		private void grow() {
+			int capacity = names.length * 2;
+			names = Arrays.copyOf(names, capacity);
+			continents = Arrays.copyOf(continents, capacity);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			infectionRate = Arrays.copyOf(infectionRate, capacity);
+			population = Arrays.copyOf(population, capacity);
+			area = Arrays.copyOf(area, capacity);
+		}
+
+		public World build() {
+			return new World(Arrays.copyOf(names, size), Arrays.copyOf(continents, size), Arrays.copyOf(x, size),
+					Arrays.copyOf(y, size), Arrays.copyOf(infectionRate, size), Arrays.copyOf(population, size),
+					Arrays.copyOf(area, size));
+		}
+	}
+}
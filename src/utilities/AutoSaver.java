@@ -0,0 +1,61 @@
+package utilities;
+
+import simulation.GameSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Writes snapshots on a background thread so saving never stalls the simulation or the EDT
+public class AutoSaver {
+	public static final Path AUTOSAVE_FILE = Paths.get("autosave.dat");
+	private final Path path;
+	private final AtomicReference<GameSnapshot> pending = new AtomicReference<>();
+	// Shared by every game; a save queued or in progress when the game exits is still finished
+	private static final ExecutorService WRITER = Writers.newWriter("autosave");
+
+	public AutoSaver() {
+		this(AUTOSAVE_FILE);
+	}
+
+	public AutoSaver(Path path) {
+		this.path = path;
+	}
+
+	// Only the newest snapshot matters: if the writer is still busy, an older pending one is replaced
+	public void submit(GameSnapshot snapshot) {
+		if (pending.getAndSet(snapshot) == null) {
+			WRITER.execute(this::writePending);
+		}
+	}
+
+	// Runs after any save already queued, so a finished game does not leave a save behind
+	public void delete() {
+		pending.set(null);
+		WRITER.execute(() -> {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	private void writePending() {
+		GameSnapshot snapshot = pending.getAndSet(null);
+		if (snapshot == null) return;
+
+		try {
+			snapshot.save(path);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public static boolean hasSave() {
+		return Files.isRegularFile(AUTOSAVE_FILE);
+	}
+}
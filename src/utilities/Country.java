@@ -1,173 +1,162 @@
 package utilities;
 
+import simulation.CountryState;
+import simulation.GameView;
+
 import javax.swing.*;
 import java.awt.*;
-
-public class Country {
-	private final String name;
-	private final String continent;
-	private final JButton button;
+import java.util.function.Consumer;
+
+// The map's side of a country. Its name and place come from the CountryState; everything that
+// changes comes from the latest GameView, since the engine mutates the state on its own thread.
+public class Country implements MapElement {
+	private static final Color VACCINATED_COLOR = new Color(144, 213, 255);
+	private static final Color INFECTED_COLOR = new Color(255, 150, 150);
+	private final CountryState state;
+	private final int id;
+	private GameView view;
+	private MapCanvas canvas;
+	private Color background = Color.WHITE;
 	private final int width = 100;
 	private final int height = 35;
 	private final int originalX;
 	private final int originalY;
 	private int currentX;
 	private int currentY;
-	private double infectionRate;
-	private final double infectionResistance;
-	private final double area;
 	private boolean selectable = false;
-	private boolean infected = false;
-	private boolean vaccinated = false;
-	private int normalPopulation;
-	private int infectedPopulation;
-	private int vaccinatedPopulation;
-
-	public Country(String name, int x, int y, String continent, double infectionResistance, int totalPopulation, double area) {
-		this.name = name;
-		this.continent = continent;
-		this.area = area;
-		this.originalX = x;
-		this.originalY = y;
-		this.currentX = x;
-		this.currentY = y;
-		this.infectionResistance = infectionResistance;
-		this.normalPopulation = totalPopulation;
-		this.infectedPopulation = 0;
-		this.vaccinatedPopulation = 0;
+	private Consumer<Country> selectionHandler = country -> {};
+
+	public Country(CountryState state, GameView view) {
+		this.state = state;
+		this.id = state.getId();
+		this.view = view;
+		this.originalX = state.getX();
+		this.originalY = state.getY();
+		this.currentX = originalX;
+		this.currentY = originalY;
+
+		refreshAppearance();
+	}
+
+	public void addToCanvas(MapCanvas canvas) {
+		this.canvas = canvas;
+		canvas.addCountry(this);
+	}
 
-		button = new JButton(name);
-		button.setOpaque(true);
-		button.setBorderPainted(false);
-		button.setFocusPainted(false);
-		button.setContentAreaFilled(false);
-		button.setContentAreaFilled(true);
-		button.setBounds(currentX, currentY, width, height);
-		button.addActionListener(e -> interact());
-		updateButtonAppearance();
+	@Override
+	public Rectangle getBounds() {
+		return new Rectangle(currentX, currentY, width, height);
 	}
 
-	public void addToPanel(JPanel panel) {
-		panel.add(button);
+	@Override
+	public void paint(Graphics2D g2d) {
+		g2d.setColor(background);
+		g2d.fillRect(currentX, currentY, width, height);
+
+		g2d.setColor(Color.BLACK);
+		g2d.setFont(UIManager.getFont("Button.font"));
+		FontMetrics metrics = g2d.getFontMetrics();
+		String name = state.getName();
+		int textX = currentX + (width - metrics.stringWidth(name)) / 2;
+		int textY = currentY + (height - metrics.getHeight()) / 2 + metrics.getAscent();
+		g2d.drawString(name, textX, textY);
 	}
 
-	private void interact() {
+	public void interact() {
 		if (selectable) {
 			int confirm = JOptionPane.showConfirmDialog(
 					null,
-					"Set " + name + " as the first infected country?",
+					"Set " + state.getName() + " as the first infected country?",
 					"Confirm Selection",
 					JOptionPane.YES_NO_OPTION
 			);
 			if (confirm == JOptionPane.YES_OPTION) {
-				setInfected(true);
 				selectable = false;
+				selectionHandler.accept(this);
 			}
 		} else {
-			int totalPopulation = getTotalPopulation();
+			long totalPopulation = getTotalPopulation();
 			String message = getCountryStatus(totalPopulation);
 
 			JOptionPane.showMessageDialog(null, message, "Country Status", JOptionPane.INFORMATION_MESSAGE);
 		}
 	}
 
-	private String getCountryStatus(int totalPopulation) {
-		double normalPercentage = ((double) normalPopulation / totalPopulation) * 100;
+	private String getCountryStatus(long totalPopulation) {
+		long exposedPopulation = view.getExposedPopulation(id);
+		long infectedPopulation = view.getInfectedPopulation(id);
+		long recoveredPopulation = view.getRecoveredPopulation(id);
+		long normalPopulation = view.getNormalPopulation(id) - exposedPopulation - recoveredPopulation;
+		long vaccinatedPopulation = view.getVaccinatedPopulation(id);
+		double exposedPercentage = ((double) exposedPopulation / totalPopulation) * 100;
 		double infectedPercentage = ((double) infectedPopulation / totalPopulation) * 100;
+		double recoveredPercentage = ((double) recoveredPopulation / totalPopulation) * 100;
+		double normalPercentage = ((double) normalPopulation / totalPopulation) * 100;
 		double vaccinatedPercentage = ((double) vaccinatedPopulation / totalPopulation) * 100;
 
 		return String.format(
-				"%s Infection Rate: %.2f%% %n" +
+				"%s Transmission Rate: %.2f/s, R0 %.1f%n" +
+				"Exposed Population: %d (%.2f%%)%n" +
 				"Infected Population: %d (%.2f%%)%n" +
+				"Recovered Population: %d (%.2f%%)%n" +
 				"Normal Population: %d (%.2f%%)%n" +
 				"Vaccinated Population: %d (%.2f%%)%n",
-				name, infectionRate + infectionResistance,
+				state.getName(), view.getTransmissionRate(id), view.getTransmissionRate(id) / view.getRecoveryRate(id),
+				exposedPopulation, exposedPercentage,
 				infectedPopulation, infectedPercentage,
+				recoveredPopulation, recoveredPercentage,
 				normalPopulation, normalPercentage,
 				vaccinatedPopulation, vaccinatedPercentage
 		);
 
 	}
 
-	public void updateInfection() {
-		if (infected && normalPopulation > 0) {
-			double infectionFactor = infectionRate * (1 - (double) infectedPopulation / getTotalPopulation());
-			int newInfections = (int) Math.ceil(infectedPopulation * infectionFactor);
-			newInfections = Math.min(newInfections, normalPopulation);
-
-			normalPopulation -= newInfections;
-			infectedPopulation += newInfections;
-		}
+	// EDT only, with each view the engine publishes; repaints only when the colour changes
+	public void update(GameView view) {
+		this.view = view;
+		refreshAppearance();
 	}
 
-	public void updateVaccination() {
-		if (vaccinated && (normalPopulation > 0 || infectedPopulation > 0)) {
-			double randomRate = 1 + (Math.random() * 2);
-
-			int newVaccinations = (int) Math.ceil(vaccinatedPopulation * randomRate);
-			newVaccinations = Math.min(newVaccinations, normalPopulation + infectedPopulation);
-
-			int vaccinatableFromInfected = Math.min(newVaccinations, infectedPopulation);
-			infectedPopulation -= vaccinatableFromInfected;
-			vaccinatedPopulation += vaccinatableFromInfected;
-
-			int vaccinatableFromNormal = Math.min(newVaccinations - vaccinatableFromInfected, normalPopulation);
-			normalPopulation -= vaccinatableFromNormal;
-			vaccinatedPopulation += vaccinatableFromNormal;
-		}
-	}
-
-	public void setInfected(boolean infected) {
-		this.infected = infected;
-		if (infected && infectedPopulation == 0) {
-			infectedPopulation = 1;
-		}
-		updateButtonAppearance();
-	}
-
-	public void setVaccinated(boolean vaccinated) {
-		this.vaccinated = vaccinated;
-		if (vaccinated && vaccinatedPopulation == 0) {
-			vaccinatedPopulation = 1;
-		}
-		updateButtonAppearance();
-	}
-
-	private void updateButtonAppearance() {
-		if (vaccinated) {
-			button.setBackground(new Color(144,213,255));
-		} else if (infected) {
-			button.setBackground(new Color(255, 150, 150));
+	public void refreshAppearance() {
+		Color color;
+		if (view.isVaccinated(id)) {
+			color = VACCINATED_COLOR;
+		} else if (view.isInfected(id)) {
+			color = INFECTED_COLOR;
 		} else {
-			button.setBackground(Color.WHITE);
+			color = Color.WHITE;
 		}
-		button.setForeground(Color.BLACK);
-		button.repaint();
+		if (color == background) return;
+		background = color;
+		if (canvas != null) canvas.markDirty(getBounds());
 	}
 
 	public boolean isInfected() {
-		return infected;
+		return view.isInfected(id);
 	}
 
 	public void setSelectable(boolean selectable) {
 		this.selectable = selectable;
-		updateButtonAppearance();
 	}
 
-	public void setInfectionRate(double infectionRate) {
-		this.infectionRate = infectionRate;
+	public void setSelectionHandler(Consumer<Country> selectionHandler) {
+		this.selectionHandler = selectionHandler;
 	}
 
 	public double getPopulationDensity() {
-		return normalPopulation / area;
+		return view.getPopulationDensity(id);
+	}
+
+	public CountryState getState() {
+		return state;
 	}
 
 	public String getName() {
-		return name;
+		return state.getName();
 	}
 
 	public String getContinent() {
-		return continent;
+		return state.getContinent();
 	}
 
 	public int getOriginalX() {
@@ -187,10 +176,10 @@ public class Country {
 	}
 
 	public void setPosition(int x, int y) {
+		if (canvas != null) canvas.markDirty(getBounds());
 		this.currentX = x;
 		this.currentY = y;
-
-		button.setBounds(x, y, width, height);
+		if (canvas != null) canvas.markDirty(getBounds());
 	}
 
 	public Point getPosition() {
@@ -198,22 +187,18 @@ public class Country {
 	}
 
 	public boolean isVaccinated() {
-		return vaccinated;
-	}
-
-	public int getNormalPopulation() {
-		return normalPopulation;
+		return view.isVaccinated(id);
 	}
 
-	public int getInfectedPopulation() {
-		return infectedPopulation;
+	public long getNormalPopulation() {
+		return view.getNormalPopulation(id);
 	}
 
-	public int getTotalPopulation() {
-		return normalPopulation + infectedPopulation + vaccinatedPopulation;
+	public long getInfectedPopulation() {
+		return view.getInfectedPopulation(id);
 	}
 
-	public boolean isAllInfected() {
-		return infectedPopulation == getTotalPopulation();
+	public long getTotalPopulation() {
+		return view.getTotalPopulation(id);
 	}
 }
@@ -0,0 +1,25 @@
+package utilities;
+
+public enum GameSpeed {
+	NORMAL("1x", 1),
+	FAST("4x", 4),
+	FASTER("16x", 16),
+	UNCAPPED("Max", GameTimerManager.UNCAPPED);
+
+	private final String label;
+	private final double timeScale;
+
+	GameSpeed(String label, double timeScale) {
+		this.label = label;
+		this.timeScale = timeScale;
+	}
+
+	public double getTimeScale() {
+		return timeScale;
+	}
+
+	@Override
+	public String toString() {
+		return label;
+	}
+}
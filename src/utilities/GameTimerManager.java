@@ -1,33 +1,202 @@
 package utilities;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+// Runs the game on one worker thread: timed tasks from the wheel, and commands posted from the EDT
+// in between. The lock only guards the clock; the worker sleeps by parking, so a post never blocks.
 public class GameTimerManager {
-	private Thread taskThread;
-	private boolean isRunning;
+	public static final double UNCAPPED = Double.POSITIVE_INFINITY;
+	private static final long RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final int WHEEL_SIZE = 1024;
+	private static final Metrics.Histogram TASK_TIMES = Metrics.getInstance().histogram("timer.task");
+	private static final Metrics.Counter TASKS_RUN = Metrics.getInstance().counter("timer.tasks");
+
+	private final TimingWheel wheel = new TimingWheel(WHEEL_SIZE, RESOLUTION_NANOS);
+	private final Queue<TimingWheel.Timeout> pendingTasks = new ConcurrentLinkedQueue<>();
+	private final SpscQueue<Runnable> commands = new SpscQueue<>();
+	private final Object lock = new Object();
+	private final LongSupplier pendingGauge = pendingTasks::size;
+	private final Thread workerThread;
+	private volatile boolean isRunning;
+	private boolean paused = false;
+	private double timeScale = 1.0;
+	private long anchorWallNanos;
+	private long anchorElapsedNanos = 0;
 
 	public GameTimerManager() {
 		isRunning = true;
+		anchorWallNanos = System.nanoTime();
+		Metrics.getInstance().gauge("timer.pending", pendingGauge);
+
+		workerThread = new Thread(this::runWheel, "game-timer");
+		workerThread.setDaemon(true);
+		workerThread.start();
+	}
+
+	public TimingWheel.Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long periodMillis) {
+		long deadline = elapsedNanos() + TimeUnit.MILLISECONDS.toNanos(initialDelay);
+		return submit(wheel.newTimeout(guard(task), deadline, TimeUnit.MILLISECONDS.toNanos(periodMillis)));
+	}
+
+	public TimingWheel.Timeout schedule(Runnable task, long delayMillis) {
+		long deadline = elapsedNanos() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+		return submit(wheel.newTimeout(guard(task), deadline, 0));
 	}
 
-	public Thread scheduleAtFixedRate(Runnable task, long initialDelay, long periodMillis) {
-		taskThread = new Thread(() -> {
+	// From one thread only, the EDT. Commands run on the worker in the order posted, before any
+	// task that is due, and also while paused; posted after shutdown they are dropped.
+	public void post(Runnable command) {
+		if (!isRunning) return;
+		commands.offer(guard(command));
+		LockSupport.unpark(workerThread);
+	}
+
+	private TimingWheel.Timeout submit(TimingWheel.Timeout timeout) {
+		if (!isRunning) {
+			timeout.cancel();
+			return timeout;
+		}
+		pendingTasks.add(timeout);
+		LockSupport.unpark(workerThread);
+		return timeout;
+	}
+
+	private Runnable guard(Runnable task) {
+		return () -> {
+			long start = System.nanoTime();
 			try {
-				Thread.sleep(initialDelay);
-				while (isRunning) {
-					task.run();
-					Thread.sleep(periodMillis);
+				task.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			} finally {
+				TASK_TIMES.recordSince(start);
+				TASKS_RUN.increment();
+			}
+		};
+	}
+
+	private void runWheel() {
+		try {
+			loop();
+		} finally {
+			wheel.clear();
+		}
+	}
+
+	private void loop() {
+		while (isRunning) {
+			TimingWheel.Timeout timeout;
+			while ((timeout = pendingTasks.poll()) != null) {
+				wheel.add(timeout);
+			}
+			Runnable command;
+			while ((command = commands.poll()) != null) {
+				command.run();
+			}
+
+			wheel.advanceTo(elapsedNanos());
+			if (!pendingTasks.isEmpty() || !commands.isEmpty()) continue;
+
+			long parkNanos;
+			synchronized (lock) {
+				// Long.MAX_VALUE also when every remaining timeout has been cancelled
+				long deadline = paused ? Long.MAX_VALUE : wheel.nextDeadline();
+				if (deadline == Long.MAX_VALUE) {
+					parkNanos = Long.MAX_VALUE;
+				} else if (isUncapped()) {
+					// No wall clock in uncapped mode: jump straight to the next deadline
+					anchorElapsedNanos = Math.max(anchorElapsedNanos, deadline);
+					continue;
+				} else {
+					parkNanos = (long) ((deadline - elapsedNanos()) / timeScale);
 				}
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
 			}
-		});
-		taskThread.start();
-		return taskThread;
+
+			// Every change the worker must see unparks it, and an unpark that arrives before the
+			// park makes it return at once, so no wake-up is lost between the checks and here
+			if (parkNanos == Long.MAX_VALUE) {
+				LockSupport.park(this);
+			} else if (parkNanos > 0) {
+				LockSupport.parkNanos(this, parkNanos);
+			}
+			if (Thread.currentThread().isInterrupted()) return;
+		}
+	}
+
+	public long elapsedNanos() {
+		synchronized (lock) {
+			if (paused || isUncapped()) return anchorElapsedNanos;
+			return anchorElapsedNanos + (long) ((System.nanoTime() - anchorWallNanos) * timeScale);
+		}
+	}
+
+	private boolean isUncapped() {
+		return Double.isInfinite(timeScale);
+	}
+
+	public void setTimeScale(double timeScale) {
+		if (!(timeScale > 0)) {
+			throw new IllegalArgumentException("Time scale must be positive: " + timeScale);
+		}
+		synchronized (lock) {
+			anchorElapsedNanos = elapsedNanos();
+			anchorWallNanos = System.nanoTime();
+			this.timeScale = timeScale;
+			LockSupport.unpark(workerThread);
+		}
+	}
+
+	public double getTimeScale() {
+		synchronized (lock) {
+			return timeScale;
+		}
+	}
+
+	public void pause() {
+		synchronized (lock) {
+			if (paused) return;
+			anchorElapsedNanos = elapsedNanos();
+			paused = true;
+			LockSupport.unpark(workerThread);
+		}
+	}
+
+	public void resume() {
+		synchronized (lock) {
+			if (!paused) return;
+			anchorWallNanos = System.nanoTime();
+			paused = false;
+			LockSupport.unpark(workerThread);
+		}
+	}
+
+	public boolean isPaused() {
+		synchronized (lock) {
+			return paused;
+		}
 	}
 
 	public void shutdown() {
-		isRunning = false;
-		if (taskThread != null && taskThread.isAlive()) {
-			taskThread.interrupt();
+		synchronized (lock) {
+			isRunning = false;
+			LockSupport.unpark(workerThread);
+		}
+		pendingTasks.clear();
+		Metrics.getInstance().removeGauge("timer.pending", pendingGauge);
+
+		if (Thread.currentThread() != workerThread) {
+			try {
+				workerThread.join(TimeUnit.SECONDS.toMillis(1));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (workerThread.isAlive()) {
+				workerThread.interrupt();
+			}
 		}
 	}
 }
@@ -1,46 +1,115 @@
 package utilities;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
+// Every score ever recorded, kept in an append-only log: a header followed by records of
+// [payload length, payload, CRC32 of the payload]. A record torn by a crash fails its length
+// or checksum and is dropped on the next load, together with anything after it.
+// All file access happens on a background writer, so recording a score never touches the disk on the EDT.
 public class HighScoreManager {
-	private static final String FILE_NAME = "highscores.dat";
-	private static HighScoreManager instance;
-	private List<HighScore> highScores;
+	public static final Path LOG_FILE = Paths.get("highscores.log");
+	// Written by older versions as one serialized list; imported once when there is no log yet
+	private static final Path LEGACY_FILE = Paths.get("highscores.dat");
+	private static final int MAGIC = 0x41504853; // "APHS"
+	private static final int VERSION = 1;
+	// Magic, version and the number of records at the start of the file that are in rank order
+	private static final int HEADER_SIZE = 12;
+	// Two strings of at most 64K each, plus the score and timestamp
+	private static final int MAX_PAYLOAD = 2 * 65537 + 12;
+	// Records appended since the last compaction before the file is rewritten in rank order
+	private static final int COMPACTION_THRESHOLD = 256;
+
+	public static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+
+	private static volatile HighScoreManager instance;
+	private final Path path;
+	// Every score, plus one board per difficulty; imported scores without one are only in the overall board
+	private final Leaderboard overall = new Leaderboard();
+	private final Map<String, Leaderboard> byDifficulty = new HashMap<>();
+	// Shared by every manager; anything queued when the game exits is still written
+	private static final ExecutorService WRITER = Writers.newWriter("highscores");
+	private final Future<?> loaded;
+	// Writer thread only
+	private int unsortedRecords = 0;
+	private boolean writable = true;
 
 	public HighScoreManager() {
-		highScores = loadHighScores();
+		this(LOG_FILE);
+	}
+
+	public HighScoreManager(Path path) {
+		this.path = path;
+		for (String difficulty : DIFFICULTIES) {
+			byDifficulty.put(difficulty, new Leaderboard());
+		}
+		loaded = WRITER.submit(this::load);
 	}
 
-	public void addHighScore(String playerName, int score, String difficultyLevel) {
+	// Completes with the rank the score took on its difficulty's board, counting from zero, once the
+	// writer has added it; that is before it reaches the disk. The score is ranked with the difficulty
+	// multiplier applied.
+	public CompletableFuture<Integer> addHighScore(String playerName, int score, String difficultyLevel) {
 		double multiplier = switch (difficultyLevel) {
 			case "Easy" -> 1;
 			case "Medium" -> 1.1;
 			case "Hard" -> 1.2;
 			default -> 0;
 		};
-		int finalScore = (int) (score * multiplier);
+		HighScore highScore = new HighScore(playerName, (int) (score * multiplier), difficultyLevel, System.currentTimeMillis());
 
-		highScores.add(new HighScore(playerName, finalScore));
-		Collections.sort(highScores);
+		// Queued behind the load, so the boards never see a score before the history
+		CompletableFuture<Integer> rank = new CompletableFuture<>();
+		WRITER.execute(() -> {
+			rank.complete(record(highScore));
+			append(highScore);
+		});
+		return rank;
+	}
 
-		if (highScores.size() > 10) {
-			highScores = new ArrayList<>(highScores.subList(0, 10));
-		}
+	// The board for one of DIFFICULTIES, or for every score when difficulty is null
+	public Leaderboard getLeaderboard(String difficulty) {
+		awaitLoad();
+		if (difficulty == null) return overall;
 
-		saveHighScores();
+		Leaderboard leaderboard = byDifficulty.get(difficulty);
+		if (leaderboard == null) throw new IllegalArgumentException("Unknown difficulty " + difficulty);
+		return leaderboard;
 	}
 
-	public List<HighScore> getHighScores() {
-		return new ArrayList<>(highScores);
+	// Blocks until every score added so far is on disk
+	public void flush() {
+		try {
+			WRITER.submit(() -> {}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		}
 	}
 
-	private void saveHighScores() {
-		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-			oos.writeObject(highScores);
-		} catch (IOException e) {
+	private void awaitLoad() {
+		try {
+			loaded.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
 			e.printStackTrace();
 		}
 	}
@@ -56,21 +125,195 @@ public class HighScoreManager {
 		return instance;
 	}
 
-	private List<HighScore> loadHighScores() {
-		try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-			return (List<HighScore>) ois.readObject();
-		} catch (IOException | ClassNotFoundException e) {
-			return new ArrayList<>();
+	// Returns the rank on the difficulty's board, or on the overall board for scores without one
+	private int record(HighScore highScore) {
+		int rank = overall.add(highScore);
+		Leaderboard leaderboard = byDifficulty.get(highScore.difficulty);
+		return leaderboard == null ? rank : leaderboard.add(highScore);
+	}
+
+	private void load() {
+		try {
+			if (Files.exists(path)) {
+				readLog();
+			} else {
+				importLegacy();
+				compact();
+			}
+		} catch (IOException e) {
+			// Leave the file alone: rewriting it from whatever was read would lose the rest
+			writable = false;
+			System.err.println("High scores unavailable, not saving new ones: " + e.getMessage());
+		}
+	}
+
+	private void readLog() throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) throw new IOException(path + ": not a high score log");
+		int version = buffer.getInt();
+		if (version != VERSION) throw new IOException(path + ": unsupported high score log version " + version);
+		int sortedRecords = buffer.getInt();
+
+		CRC32 crc = new CRC32();
+		int records = 0;
+		List<HighScore> loadedScores = new ArrayList<>();
+		boolean corrupt = false;
+		while (buffer.hasRemaining()) {
+			int start = buffer.position();
+			int length = buffer.remaining() >= 4 ? buffer.getInt() : -1;
+			boolean validLength = length > 0 && length <= MAX_PAYLOAD;
+			boolean complete = validLength && buffer.remaining() >= length + 4;
+			if (complete) {
+				crc.reset();
+				crc.update(buffer.array(), buffer.position(), length);
+				complete = (int) crc.getValue() == buffer.getInt(buffer.position() + length);
+			}
+
+			if (!complete) {
+				// A crash mid-append can only leave the last record short or unwritten; a bad record
+				// with more data after it is damage that truncating would make permanent
+				boolean torn = length < 0 || (validLength && start + length + 8 >= buffer.limit()) || isZero(buffer, start);
+				corrupt = !torn;
+				buffer.position(start);
+				break;
+			}
+
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array(), buffer.position(), length));
+			loadedScores.add(new HighScore(in.readUTF(), in.readInt(), in.readUTF(), in.readLong()));
+			buffer.position(buffer.position() + length + 4);
+			records++;
+		}
+
+		// File order keeps ties as they were: the compacted prefix is in rank order, the tail in recording order
+		for (HighScore highScore : loadedScores) {
+			record(highScore);
+		}
+		unsortedRecords = records - Math.min(sortedRecords, records);
+
+		if (corrupt) {
+			writable = false;
+			System.err.println(path + ": damaged at byte " + buffer.position() + ", showing the scores before it and not saving new ones");
+		} else if (buffer.hasRemaining()) {
+			System.err.println(path + ": dropped " + buffer.remaining() + " bytes of an incomplete record");
+			compact();
+		} else if (unsortedRecords >= COMPACTION_THRESHOLD) {
+			compact();
+		}
+	}
+
+	// Filesystems can extend a file before its data reaches the disk, leaving zeros after a crash
+	private static boolean isZero(ByteBuffer buffer, int from) {
+		for (int i = from; i < buffer.limit(); i++) {
+			if (buffer.get(i) != 0) return false;
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void importLegacy() {
+		if (!Files.exists(LEGACY_FILE)) return;
+
+		try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(LEGACY_FILE)))) {
+			for (HighScore highScore : (List<HighScore>) ois.readObject()) {
+				record(new HighScore(highScore.playerName, highScore.score, "", 0));
+			}
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			System.err.println(LEGACY_FILE + ": could not import old high scores: " + e);
+		}
+	}
+
+	private void append(HighScore highScore) {
+		if (!writable) return;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			writeRecord(new DataOutputStream(bytes), highScore);
+			channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+			channel.force(false);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		if (++unsortedRecords >= COMPACTION_THRESHOLD) {
+			try {
+				compact();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	// Rewrites the whole history in rank order next to the log, then swaps it in, so a crash
+	// leaves either the old file or the new one
+	private void compact() throws IOException {
+		List<HighScore> ranked = overall.getTop(overall.size());
+
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(ranked.size());
+			for (HighScore highScore : ranked) {
+				writeRecord(out, highScore);
+			}
+			out.flush();
+			file.getFD().sync();
+		}
+		try {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
 		}
+		unsortedRecords = 0;
+	}
+
+	private static void writeRecord(DataOutputStream out, HighScore highScore) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream payload = new DataOutputStream(bytes);
+		payload.writeUTF(highScore.playerName);
+		payload.writeInt(highScore.score);
+		payload.writeUTF(highScore.difficulty);
+		payload.writeLong(highScore.timestamp);
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+		out.writeInt((int) crc.getValue());
 	}
 
 	public static class HighScore implements Serializable, Comparable<HighScore> {
+		// Matches the class older versions serialized into highscores.dat
+		private static final long serialVersionUID = 5939700669357900806L;
 		private final String playerName;
 		private final int score;
+		// Empty for scores imported from the old file, which did not record them
+		private final String difficulty;
+		private final long timestamp;
 
-		public HighScore(String playerName, int score) {
+		public HighScore(String playerName, int score, String difficulty, long timestamp) {
 			this.playerName = playerName;
 			this.score = score;
+			this.difficulty = difficulty;
+			this.timestamp = timestamp;
+		}
+
+		public String getPlayerName() {
+			return playerName;
+		}
+
+		public int getScore() {
+			return score;
+		}
+
+		public String getDifficulty() {
+			return difficulty;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
 		}
 
 		@Override
@@ -0,0 +1,220 @@
+package utilities;
+
+import utilities.HighScoreManager.HighScore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Scores in rank order, held as a treap whose nodes also count their subtree, so the entry at a rank
+// and the rank of a score are each found on a single root-to-leaf walk. Nodes are indexes into
+// a packed array, which keeps millions of entries compact and puts everything a walk reads about a node
+// in one cache line. Equal scores rank in the order they were added.
+public class Leaderboard {
+	private static final int NONE = -1;
+	// Each node is four ints: score, left child, right child, subtree size
+	private static final int SCORE = 0;
+	private static final int LEFT = 1;
+	private static final int RIGHT = 2;
+	private static final int SIZE = 3;
+	private static final int NODE_INTS = 4;
+
+	private HighScore[] entries = new HighScore[64];
+	private int[] nodes = new int[64 * NODE_INTS];
+	// Only needed on insert, so kept apart
+	private int[] priorities = new int[64];
+	private final SplittableRandom random = new SplittableRandom(0x4C42);
+	private int count = 0;
+	private int root = NONE;
+	// Results of split, which has two
+	private int splitLeft;
+	private int splitRight;
+
+	public synchronized int size() {
+		return count;
+	}
+
+	// Returns the rank the entry was given, counting from zero: after every higher score and every
+	// equal one added before it, the same place get() and getPage() show it in
+	public synchronized int add(HighScore highScore) {
+		int rank = countAtLeast(highScore.getScore());
+		if (count == entries.length) grow();
+		int node = count++;
+		entries[node] = highScore;
+		int base = node * NODE_INTS;
+		nodes[base + SCORE] = highScore.getScore();
+		nodes[base + LEFT] = NONE;
+		nodes[base + RIGHT] = NONE;
+		nodes[base + SIZE] = 1;
+		priorities[node] = random.nextInt();
+		root = insert(root, node);
+		return rank;
+	}
+
+	// Zero-based; the entry shown at position rank + 1
+	public synchronized HighScore get(int rank) {
+		if (rank < 0 || rank >= count) throw new IndexOutOfBoundsException("Rank " + rank + " of " + count);
+
+		int node = root;
+		while (true) {
+			int leftSize = size(left(node));
+			if (rank < leftSize) {
+				node = left(node);
+			} else if (rank == leftSize) {
+				return entries[node];
+			} else {
+				rank -= leftSize + 1;
+				node = right(node);
+			}
+		}
+	}
+
+	// How many entries beat the score, counting from zero. Ties share this rank here, while the list
+	// orders them by when they were added; use the rank add() returns for a particular entry.
+	public synchronized int rankOf(int score) {
+		int rank = 0;
+		int node = root;
+		while (node != NONE) {
+			if (score(node) > score) {
+				rank += size(left(node)) + 1;
+				node = right(node);
+			} else {
+				node = left(node);
+			}
+		}
+		return rank;
+	}
+
+	private int countAtLeast(int score) {
+		int rank = 0;
+		int node = root;
+		while (node != NONE) {
+			if (score(node) >= score) {
+				rank += size(left(node)) + 1;
+				node = right(node);
+			} else {
+				node = left(node);
+			}
+		}
+		return rank;
+	}
+
+	public List<HighScore> getTop(int limit) {
+		return getPage(0, limit);
+	}
+
+	// Walks down to the first rank once, then in order, so a page costs its length plus one descent
+	public synchronized List<HighScore> getPage(int from, int limit) {
+		int end = (int) Math.min((long) from + limit, count);
+		List<HighScore> page = new ArrayList<>(Math.max(0, end - from));
+		if (from < 0 || from >= end) return page;
+
+		int[] stack = new int[32];
+		int depth = 0;
+		int node = root;
+		int skip = from;
+		while (node != NONE) {
+			int leftSize = size(left(node));
+			if (skip <= leftSize) {
+				if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+				stack[depth++] = node;
+				if (skip == leftSize) break;
+				node = left(node);
+			} else {
+				skip -= leftSize + 1;
+				node = right(node);
+			}
+		}
+
+		while (page.size() < end - from) {
+			int next = stack[--depth];
+			page.add(entries[next]);
+			for (node = right(next); node != NONE; node = left(node)) {
+				if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+				stack[depth++] = node;
+			}
+		}
+		return page;
+	}
+
+	private int insert(int tree, int node) {
+		if (tree == NONE) return node;
+
+		if (priorities[node] > priorities[tree]) {
+			split(tree, node);
+			setLeft(node, splitLeft);
+			setRight(node, splitRight);
+			update(node);
+			return node;
+		}
+
+		if (before(node, tree)) {
+			setLeft(tree, insert(left(tree), node));
+		} else {
+			setRight(tree, insert(right(tree), node));
+		}
+		update(tree);
+		return tree;
+	}
+
+	// Separates the nodes that rank before the given one from those after it
+	private void split(int tree, int node) {
+		if (tree == NONE) {
+			splitLeft = NONE;
+			splitRight = NONE;
+			return;
+		}
+
+		if (before(tree, node)) {
+			split(right(tree), node);
+			setRight(tree, splitLeft);
+			splitLeft = tree;
+		} else {
+			split(left(tree), node);
+			setLeft(tree, splitRight);
+			splitRight = tree;
+		}
+		update(tree);
+	}
+
+	// Higher scores first; nodes are numbered as they are added, so ties go to the earlier entry
+	private boolean before(int a, int b) {
+		return score(a) > score(b) || (score(a) == score(b) && a < b);
+	}
+
+	private int score(int node) {
+		return nodes[node * NODE_INTS + SCORE];
+	}
+
+	private int left(int node) {
+		return nodes[node * NODE_INTS + LEFT];
+	}
+
+	private int right(int node) {
+		return nodes[node * NODE_INTS + RIGHT];
+	}
+
+	private void setLeft(int node, int child) {
+		nodes[node * NODE_INTS + LEFT] = child;
+	}
+
+	private void setRight(int node, int child) {
+		nodes[node * NODE_INTS + RIGHT] = child;
+	}
+
+	private int size(int node) {
+		return node == NONE ? 0 : nodes[node * NODE_INTS + SIZE];
+	}
+
+	private void update(int node) {
+		nodes[node * NODE_INTS + SIZE] = 1 + size(left(node)) + size(right(node));
+	}
+
+	private void grow() {
+		int capacity = entries.length * 2;
+		entries = Arrays.copyOf(entries, capacity);
+		nodes = Arrays.copyOf(nodes, capacity * NODE_INTS);
+		priorities = Arrays.copyOf(priorities, capacity);
+	}
+}
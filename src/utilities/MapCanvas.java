@@ -0,0 +1,177 @@
+package utilities;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class MapCanvas extends JComponent {
+	// Past this many separate regions one repaint of their union is cheaper than painting each
+	private static final int MAX_DIRTY_REGIONS = 32;
+	private final List<Country> countries = new ArrayList<>();
+	private final List<Transport> vehicles = new ArrayList<>();
+	private final List<PickupMarker> pickups = new ArrayList<>();
+	private final List<MapElement> overlays = new ArrayList<>();
+	private final List<Rectangle> dirtyRegions = new ArrayList<>();
+	private boolean flushPending = false;
+	private Consumer<PickupMarker> pickupHandler = marker -> {};
+	private Runnable firstPaintHandler;
+
+	public MapCanvas() {
+		setOpaque(true);
+		setBackground(UIManager.getColor("Panel.background"));
+
+		addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				handleClick(e.getPoint());
+			}
+		});
+	}
+
+	public void addCountry(Country country) {
+		countries.add(country);
+		markDirty(country.getBounds());
+	}
+
+	public void addVehicle(Transport vehicle) {
+		vehicles.add(vehicle);
+		markDirty(vehicle.getBounds());
+	}
+
+	public void removeVehicle(Transport vehicle) {
+		if (vehicles.remove(vehicle)) {
+			markDirty(vehicle.getBounds());
+		}
+	}
+
+	public void addPickup(PickupMarker marker) {
+		pickups.add(marker);
+		markDirty(marker.getBounds());
+	}
+
+	public void removePickup(PickupMarker marker) {
+		if (pickups.remove(marker)) {
+			markDirty(marker.getBounds());
+		}
+	}
+
+	public void addOverlay(MapElement overlay) {
+		overlays.add(overlay);
+		markDirty(overlay.getBounds());
+	}
+
+	public List<PickupMarker> getPickups() {
+		return pickups;
+	}
+
+	public List<Transport> getVehicles() {
+		return vehicles;
+	}
+
+	public void setPickupHandler(Consumer<PickupMarker> pickupHandler) {
+		this.pickupHandler = pickupHandler;
+	}
+
+	// Runs once, after the map has been painted for the first time
+	public void setFirstPaintHandler(Runnable firstPaintHandler) {
+		this.firstPaintHandler = firstPaintHandler;
+	}
+
+	public void markDirty(Rectangle region) {
+		if (region.isEmpty()) return;
+
+		// Overlapping regions are merged so a moving sprite costs one rectangle, not two
+		Rectangle merged = new Rectangle(region);
+		for (int i = dirtyRegions.size() - 1; i >= 0; i--) {
+			if (dirtyRegions.get(i).intersects(merged)) {
+				merged.add(dirtyRegions.remove(i));
+			}
+		}
+		dirtyRegions.add(merged);
+
+		if (!flushPending) {
+			flushPending = true;
+			SwingUtilities.invokeLater(this::flush);
+		}
+	}
+
+	public void flush() {
+		flushPending = false;
+		if (dirtyRegions.isEmpty() || !isShowing()) {
+			dirtyRegions.clear();
+			return;
+		}
+
+		if (dirtyRegions.size() > MAX_DIRTY_REGIONS) {
+			Rectangle union = new Rectangle(dirtyRegions.get(0));
+			for (Rectangle region : dirtyRegions) {
+				union.add(region);
+			}
+			dirtyRegions.clear();
+			paintImmediately(union);
+			return;
+		}
+
+		// RepaintManager would merge these into one bounding box, so each region is painted on its own
+		List<Rectangle> regions = new ArrayList<>(dirtyRegions);
+		dirtyRegions.clear();
+		for (Rectangle region : regions) {
+			paintImmediately(region);
+		}
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Graphics2D g2d = (Graphics2D) g.create();
+		Rectangle clip = g2d.getClipBounds();
+		if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+		g2d.setColor(getBackground());
+		g2d.fillRect(clip.x, clip.y, clip.width, clip.height);
+		g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+		// Same stacking as the old component layout: vehicles below countries, pickups on top
+		paintAll(g2d, vehicles, clip);
+		paintAll(g2d, countries, clip);
+		paintAll(g2d, pickups, clip);
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		paintAll(g2d, overlays, clip);
+		g2d.dispose();
+
+		if (firstPaintHandler != null) {
+			Runnable handler = firstPaintHandler;
+			firstPaintHandler = null;
+			handler.run();
+		}
+	}
+
+	private static void paintAll(Graphics2D g2d, List<? extends MapElement> elements, Rectangle clip) {
+		for (MapElement element : elements) {
+			if (element.getBounds().intersects(clip)) {
+				element.paint(g2d);
+			}
+		}
+	}
+
+	private void handleClick(Point point) {
+		for (int i = pickups.size() - 1; i >= 0; i--) {
+			PickupMarker marker = pickups.get(i);
+			if (marker.getBounds().contains(point)) {
+				pickupHandler.accept(marker);
+				return;
+			}
+		}
+
+		for (int i = countries.size() - 1; i >= 0; i--) {
+			Country country = countries.get(i);
+			if (country.getBounds().contains(point)) {
+				country.interact();
+				return;
+			}
+		}
+	}
+}
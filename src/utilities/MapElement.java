@@ -0,0 +1,9 @@
+package utilities;
+
+import java.awt.*;
+
+public interface MapElement {
+	Rectangle getBounds();
+
+	void paint(Graphics2D g2d);
+}
@@ -0,0 +1,106 @@
+package utilities;
+
+import java.awt.*;
+
+// Live numbers in the corner of the map, over the last second rather than the whole session
+// so a spike is visible while it happens. EDT only, like the rest of the canvas.
+public class MetricsOverlay implements MapElement {
+	public static final String TICK = "engine.tick";
+	public static final String FRAME = "frame.time";
+	public static final String EDT_LAG = "edt.lag";
+	public static final String TRANSPORTS_IN_FLIGHT = "transports.inFlight";
+	public static final String PENDING_EDT_EVENTS = "edt.pendingEvents";
+	private static final long WINDOW_MILLIS = 1000;
+	private static final int WIDTH = 250;
+	private static final int LINE_HEIGHT = 16;
+	private static final int PADDING = 8;
+	private static final int MARGIN = 10;
+	private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+	private final MapCanvas canvas;
+	private final Metrics metrics = Metrics.getInstance();
+	private final Metrics.Histogram tickTimes = metrics.histogram(TICK);
+	private final Metrics.Histogram frameTimes = metrics.histogram(FRAME);
+	private final Metrics.Histogram edtLag = metrics.histogram(EDT_LAG);
+	private Metrics.Snapshot lastTicks = tickTimes.snapshot();
+	private Metrics.Snapshot lastFrames = frameTimes.snapshot();
+	private Metrics.Snapshot lastLag = edtLag.snapshot();
+	private String[] lines = {"Collecting..."};
+	private long windowStart = System.currentTimeMillis();
+	private boolean visible = false;
+
+	public MetricsOverlay(MapCanvas canvas) {
+		this.canvas = canvas;
+	}
+
+	public boolean isVisible() {
+		return visible;
+	}
+
+	public void setVisible(boolean visible) {
+		if (this.visible == visible) return;
+		canvas.markDirty(getBounds());
+		this.visible = visible;
+		if (visible) {
+			// Starts a fresh window rather than showing everything since it was last open
+			lastTicks = tickTimes.snapshot();
+			lastFrames = frameTimes.snapshot();
+			lastLag = edtLag.snapshot();
+			windowStart = System.currentTimeMillis();
+			lines = new String[]{"Collecting..."};
+		}
+		canvas.markDirty(getBounds());
+	}
+
+	// Called every frame; only does work once a second, and not at all while hidden
+	public void update() {
+		long now = System.currentTimeMillis();
+		if (!visible || now - windowStart < WINDOW_MILLIS) return;
+		windowStart = now;
+
+		Metrics.Snapshot ticks = tickTimes.snapshot();
+		Metrics.Snapshot frames = frameTimes.snapshot();
+		Metrics.Snapshot lag = edtLag.snapshot();
+		Metrics.Snapshot tickWindow = ticks.minus(lastTicks);
+		Metrics.Snapshot frameWindow = frames.minus(lastFrames);
+		Metrics.Snapshot lagWindow = lag.minus(lastLag);
+		lastTicks = ticks;
+		lastFrames = frames;
+		lastLag = lag;
+
+		canvas.markDirty(getBounds());
+		lines = new String[]{
+				"Last second, ms",
+				String.format("Tick    p50 %s  p99 %s", millis(tickWindow, 0.5), millis(tickWindow, 0.99)),
+				String.format("Frame   p50 %s  p99 %s", millis(frameWindow, 0.5), millis(frameWindow, 0.99)),
+				String.format("EDT lag p50 %s  p99 %s", millis(lagWindow, 0.5), millis(lagWindow, 0.99)),
+				String.format("In flight %d   EDT queue %d",
+						metrics.getGauge(TRANSPORTS_IN_FLIGHT), metrics.getGauge(PENDING_EDT_EVENTS))
+		};
+		canvas.markDirty(getBounds());
+	}
+
+	private static String millis(Metrics.Snapshot window, double quantile) {
+		if (window.getCount() == 0) return "    -";
+		return String.format("%5.2f", window.getPercentile(quantile) / 1e6);
+	}
+
+	@Override
+	public Rectangle getBounds() {
+		if (!visible) return new Rectangle();
+		return new Rectangle(MARGIN, MARGIN, WIDTH, PADDING * 2 + LINE_HEIGHT * lines.length);
+	}
+
+	@Override
+	public void paint(Graphics2D g2d) {
+		if (!visible) return;
+
+		Rectangle bounds = getBounds();
+		g2d.setColor(new Color(30, 30, 30, 200));
+		g2d.fillRoundRect(bounds.x, bounds.y, bounds.width, bounds.height, 10, 10);
+		g2d.setColor(Color.WHITE);
+		g2d.setFont(FONT);
+		for (int i = 0; i < lines.length; i++) {
+			g2d.drawString(lines[i], bounds.x + PADDING, bounds.y + PADDING + 12 + LINE_HEIGHT * i);
+		}
+	}
+}
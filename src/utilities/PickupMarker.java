@@ -0,0 +1,56 @@
+package utilities;
+
+import simulation.Pickup;
+
+import java.awt.*;
+
+public class PickupMarker implements MapElement {
+	private static final int SIZE = 25;
+	private static final Font FONT = new Font("Arial", Font.BOLD, 10);
+	private final Pickup pickup;
+	private final Country country;
+	private final String label;
+	private int x;
+	private int y;
+
+	public PickupMarker(Pickup pickup, Country country) {
+		this.pickup = pickup;
+		this.country = country;
+		this.label = "+" + pickup.getPoints();
+		updatePosition();
+	}
+
+	public void updatePosition() {
+		x = country.getX() + pickup.getOffsetX();
+		y = country.getY() + pickup.getOffsetY();
+	}
+
+	@Override
+	public Rectangle getBounds() {
+		return new Rectangle(x, y, SIZE, SIZE);
+	}
+
+	@Override
+	public void paint(Graphics2D g2d) {
+		boolean isInfected = pickup.isInfectedCountry();
+		g2d.setColor(isInfected ? Color.YELLOW : Color.BLUE);
+		g2d.fillRect(x, y, SIZE, SIZE);
+		g2d.setColor(Color.BLACK);
+		g2d.drawRect(x, y, SIZE - 1, SIZE - 1);
+
+		g2d.setFont(FONT);
+		g2d.setColor(isInfected ? Color.BLACK : Color.WHITE);
+		FontMetrics metrics = g2d.getFontMetrics();
+		int textX = x + (SIZE - metrics.stringWidth(label)) / 2;
+		int textY = y + (SIZE - metrics.getHeight()) / 2 + metrics.getAscent();
+		g2d.drawString(label, textX, textY);
+	}
+
+	public Pickup getPickup() {
+		return pickup;
+	}
+
+	public Country getCountry() {
+		return country;
+	}
+}
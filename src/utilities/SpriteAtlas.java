@@ -0,0 +1,93 @@
+package utilities;
+
+import simulation.TransportMode;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+public class SpriteAtlas {
+	public static final int SPRITE_SIZE = 30;
+	public static final int NORMAL = 0;
+	public static final int INFECTED = 1;
+	public static final int VACCINE = 2;
+	private static final String[] STATE_SUFFIXES = {"", "_infected", "_vaccine"};
+	// 64 steps of 5.6 degrees; finer steps are not visible at 30 pixels
+	private static final int ROTATION_STEPS = 64;
+	private static volatile SpriteAtlas instance;
+
+	// Indexed by [mode][state][rotation step]
+	private final ImageIcon[][][] sprites = new ImageIcon[TransportMode.values().length][STATE_SUFFIXES.length][ROTATION_STEPS];
+
+	private SpriteAtlas() {
+		for (TransportMode mode : TransportMode.values()) {
+			String baseName = "images/" + mode.getName().toLowerCase();
+			for (int state = 0; state < STATE_SUFFIXES.length; state++) {
+				BufferedImage sprite = loadScaled(baseName + STATE_SUFFIXES[state] + ".png");
+				for (int step = 0; step < ROTATION_STEPS; step++) {
+					sprites[mode.ordinal()][state][step] = new ImageIcon(rotate(sprite, step * 2 * Math.PI / ROTATION_STEPS));
+				}
+			}
+		}
+	}
+
+	public static SpriteAtlas getInstance() {
+		if (instance == null) {
+			synchronized (SpriteAtlas.class) {
+				if (instance == null) {
+					instance = new SpriteAtlas();
+				}
+			}
+		}
+		return instance;
+	}
+
+	public ImageIcon getSprite(TransportMode mode, int state, double angle) {
+		int step = (int) Math.round(angle / (2 * Math.PI) * ROTATION_STEPS);
+		return sprites[mode.ordinal()][state][Math.floorMod(step, ROTATION_STEPS)];
+	}
+
+	private static BufferedImage loadScaled(String path) {
+		BufferedImage scaled = new BufferedImage(SPRITE_SIZE, SPRITE_SIZE, BufferedImage.TYPE_INT_ARGB);
+
+		try {
+			BufferedImage original = ImageIO.read(new File(path));
+			if (original == null) throw new IOException("Unsupported image format: " + path);
+
+			Graphics2D g2d = scaled.createGraphics();
+			g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+			g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g2d.drawImage(original, 0, 0, SPRITE_SIZE, SPRITE_SIZE, null);
+			g2d.dispose();
+		} catch (IOException e) {
+			// A missing sprite leaves the vehicle invisible rather than stopping the game
+			e.printStackTrace();
+		}
+
+		return scaled;
+	}
+
+	private static BufferedImage rotate(BufferedImage image, double angle) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+
+		BufferedImage rotatedImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = rotatedImage.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		AffineTransform transform = new AffineTransform();
+		transform.translate(w / 2.0, h / 2.0);
+		transform.rotate(angle);
+		transform.translate(-w / 2.0, -h / 2.0);
+
+		g2d.setTransform(transform);
+		g2d.drawImage(image, 0, 0, null);
+		g2d.dispose();
+
+		return rotatedImage;
+	}
+}
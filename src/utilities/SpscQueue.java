@@ -0,0 +1,79 @@
+package utilities;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+// Unbounded FIFO between exactly one producer thread and one consumer thread. Neither side ever
+// locks or spins: the producer links a node and the consumer follows the links, each publishing
+// its progress with a release store the other side reads with an acquire load.
+// Must be created before either thread uses it, for example before starting the consumer.
+public class SpscQueue<T> {
+	private static final VarHandle NEXT;
+	private static final VarHandle OFFERED;
+	private static final VarHandle POLLED;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+			OFFERED = lookup.findVarHandle(SpscQueue.class, "offered", long.class);
+			POLLED = lookup.findVarHandle(SpscQueue.class, "polled", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// The consumer's side: the node it took last, whose item is already cleared
+	private Node<T> head;
+	// The producer's side: the node it linked last
+	private Node<T> tail;
+	// Each written by one side only; together they give the size to any thread
+	private long offered = 0;
+	private long polled = 0;
+
+	public SpscQueue() {
+		head = tail = new Node<>(null);
+	}
+
+	// Producer only
+	public void offer(T item) {
+		Node<T> node = new Node<>(Objects.requireNonNull(item));
+		NEXT.setRelease(tail, node);
+		tail = node;
+		OFFERED.setRelease(this, offered + 1);
+	}
+
+	// Consumer only; null when empty
+	public T poll() {
+		@SuppressWarnings("unchecked")
+		Node<T> next = (Node<T>) NEXT.getAcquire(head);
+		if (next == null) return null;
+
+		T item = next.item;
+		next.item = null;
+		head = next;
+		POLLED.setRelease(this, polled + 1);
+		return item;
+	}
+
+	// Consumer only
+	public boolean isEmpty() {
+		return NEXT.getAcquire(head) == null;
+	}
+
+	// Any thread; a moment's estimate while both sides are busy
+	public long size() {
+		long taken = (long) POLLED.getAcquire(this);
+		return Math.max(0, (long) OFFERED.getAcquire(this) - taken);
+	}
+
+	private static final class Node<T> {
+		private T item;
+		private Node<T> next;
+
+		private Node(T item) {
+			this.item = item;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package utilities;
+
+import simulation.GameEngine;
+import simulation.GameSnapshot;
+import simulation.RouteGraph;
+import simulation.World;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Staged startup. Launching the game starts two loaders: the world and its route graph on one
+// thread, the vehicle sprites on the other. Both run while the menu is up, and a game is built
+// off the EDT once both are done. Every stage is a future, so nothing reads a half-loaded asset;
+// callers wait on a stage or chain onto it.
+public class Startup {
+	// From launching the JVM to the main menu being painted
+	public static final long MENU_BUDGET_MILLIS = 1500;
+	// From choosing a game to its map being painted
+	public static final long MAP_BUDGET_MILLIS = 500;
+	// Loading the world, routes and sprites, as --startup-check measures it
+	public static final long LOAD_BUDGET_MILLIS = 1000;
+	private static volatile Startup instance;
+
+	private final ExecutorService loader = Executors.newFixedThreadPool(2, task -> {
+		Thread thread = new Thread(task, "startup");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Metrics metrics = Metrics.getInstance();
+	private final CompletableFuture<World> world;
+	private final CompletableFuture<RouteGraph> routes;
+	private final CompletableFuture<SpriteAtlas> sprites;
+	private final CompletableFuture<Void> ready;
+
+	private Startup() {
+		world = CompletableFuture.supplyAsync(timed("startup.world", World::loadDefault), loader);
+		routes = world.thenApplyAsync(map -> timed("startup.routes", () -> RouteGraph.build(map)).get(), loader);
+		sprites = CompletableFuture.supplyAsync(timed("startup.sprites", SpriteAtlas::getInstance), loader);
+		ready = CompletableFuture.allOf(routes, sprites);
+	}
+
+	// The first call starts loading; call it as early as possible
+	public static Startup getInstance() {
+		if (instance == null) {
+			synchronized (Startup.class) {
+				if (instance == null) {
+					instance = new Startup();
+				}
+			}
+		}
+		return instance;
+	}
+
+	// Completes once every asset a game needs is loaded
+	public CompletableFuture<Void> whenReady() {
+		return ready;
+	}
+
+	public CompletableFuture<GameEngine> newGame(String difficulty) {
+		long seed = new SplittableRandom().nextLong();
+		return ready.thenApplyAsync(done -> timed("startup.engine",
+				() -> new GameEngine(difficulty, seed, world.join(), routes.join())).get(), loader);
+	}
+
+	public CompletableFuture<GameEngine> continueGame(Path savePath) {
+		CompletableFuture<GameSnapshot> snapshot = CompletableFuture.supplyAsync(() -> {
+			try {
+				return GameSnapshot.load(savePath);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, loader);
+		return snapshot.thenCombineAsync(ready, (saved, done) -> timed("startup.engine",
+				() -> GameEngine.restore(saved, world.join(), routes.join())).get(), loader);
+	}
+
+	public void menuShown() {
+		long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+		metrics.histogram("startup.menu").record(TimeUnit.MILLISECONDS.toNanos(uptime));
+		checkBudget("Main menu", uptime, MENU_BUDGET_MILLIS);
+	}
+
+	public void mapShown(long requestedNanos) {
+		long nanos = System.nanoTime() - requestedNanos;
+		metrics.histogram("startup.map").record(nanos);
+		checkBudget("Game map", TimeUnit.NANOSECONDS.toMillis(nanos), MAP_BUDGET_MILLIS);
+	}
+
+	private static void checkBudget(String stage, long millis, long budget) {
+		if (millis > budget) {
+			System.err.println(stage + " took " + millis + " ms to appear, over its " + budget + " ms budget");
+		}
+	}
+
+	private <T> Supplier<T> timed(String histogram, Supplier<T> stage) {
+		return () -> {
+			long start = System.nanoTime();
+			try {
+				return stage.get();
+			} finally {
+				metrics.histogram(histogram).recordSince(start);
+			}
+		};
+	}
+
+	// Headless: loads everything a game needs, builds a game and reports each stage against the
+	// load budget, exiting with 1 when over it
+	public static void main(String[] args) throws ClassNotFoundException {
+		long millis = loadAll();
+		System.out.printf("Ready in %d ms, budget %d ms%n", millis, LOAD_BUDGET_MILLIS);
+		if (millis > LOAD_BUDGET_MILLIS) System.exit(1);
+	}
+
+	// The training run for the class-data archive: the same loading, but never a failure, since how
+	// fast the build machine happens to be says nothing about the archive
+	public static void warmUp() throws ClassNotFoundException {
+		System.out.printf("Ready in %d ms%n", loadAll());
+	}
+
+	// Also loads the window classes, without creating any, so the archive covers them
+	private static long loadAll() throws ClassNotFoundException {
+		long start = System.nanoTime();
+		Startup startup = getInstance();
+		GameEngine engine = startup.newGame("Medium").join();
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		for (String name : new String[]{"MainMenu", "windows.GameWindow", "windows.DifficultySelectionDialog",
+				"windows.HighScoresWindow", "windows.UpgradeStoreDialog", "windows.PlayerNameDialog"}) {
+			Class.forName(name, false, Startup.class.getClassLoader());
+		}
+
+		System.out.printf("%d countries, %d routes%n", engine.getCountries().size(), engine.getRouteGraph().size());
+		for (String stage : new String[]{"world", "routes", "sprites", "engine"}) {
+			long stageNanos = startup.metrics.histogram("startup." + stage).getMax();
+			System.out.printf("  %-8s %6.1f ms%n", stage, stageNanos / 1e6);
+		}
+		return millis;
+	}
+}
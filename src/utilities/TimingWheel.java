@@ -0,0 +1,197 @@
+package utilities;
+
+import java.util.function.Consumer;
+
+public class TimingWheel {
+	private final Timeout[] buckets;
+	private final int mask;
+	private final long resolution;
+	private long currentSlot = 0;
+	private int size = 0;
+
+	public TimingWheel(int wheelSize, long resolution) {
+		if (Integer.bitCount(wheelSize) != 1) {
+			throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+		}
+		this.buckets = new Timeout[wheelSize];
+		this.mask = wheelSize - 1;
+		this.resolution = resolution;
+	}
+
+	public Timeout newTimeout(Runnable task, long deadline, long period) {
+		return new Timeout(task, deadline, period);
+	}
+
+	public Timeout schedule(Runnable task, long deadline, long period) {
+		Timeout timeout = newTimeout(task, deadline, period);
+		add(timeout);
+		return timeout;
+	}
+
+	public void add(Timeout timeout) {
+		add(timeout, currentSlot);
+	}
+
+	private void add(Timeout timeout, long earliestSlot) {
+		if (timeout.cancelled) return;
+
+		// Round up so a task never fires before its deadline, and never into a slot already expired
+		long slot = Math.max(earliestSlot, (timeout.deadline + resolution - 1) / resolution);
+		timeout.slot = slot;
+
+		int index = (int) (slot & mask);
+		timeout.prev = null;
+		timeout.next = buckets[index];
+		if (buckets[index] != null) buckets[index].prev = timeout;
+		buckets[index] = timeout;
+		size++;
+	}
+
+	private void remove(Timeout timeout, int index) {
+		if (timeout.prev != null) {
+			timeout.prev.next = timeout.next;
+		} else {
+			buckets[index] = timeout.next;
+		}
+		if (timeout.next != null) timeout.next.prev = timeout.prev;
+		timeout.next = null;
+		timeout.prev = null;
+		size--;
+	}
+
+	public void advanceTo(long now) {
+		long targetSlot = now / resolution;
+		while (currentSlot <= targetSlot) {
+			expire(currentSlot);
+			currentSlot++;
+			// Jump over empty slots instead of visiting each one, stopping at the target if nothing is due
+			if (currentSlot < targetSlot) currentSlot = Math.min(targetSlot, nextSlot());
+		}
+	}
+
+	private void expire(long slot) {
+		int index = (int) (slot & mask);
+		Timeout timeout = buckets[index];
+
+		while (timeout != null) {
+			Timeout next = timeout.next;
+
+			if (timeout.cancelled) {
+				remove(timeout, index);
+			} else if (timeout.slot <= slot) {
+				remove(timeout, index);
+				timeout.task.run();
+
+				if (timeout.period > 0 && !timeout.cancelled) {
+					// Fixed rate: the next deadline is derived from the previous one, never from "now",
+					// so a late run catches up on the following slots instead of shifting the schedule
+					timeout.deadline += timeout.period;
+					add(timeout, slot + 1);
+				}
+			}
+
+			timeout = next;
+		}
+	}
+
+	public long nextDeadline() {
+		long slot = nextSlot();
+		return slot == Long.MAX_VALUE ? Long.MAX_VALUE : slot * resolution;
+	}
+
+	// The earliest slot holding a live timeout, or Long.MAX_VALUE if there is none. Cancelled
+	// timeouts passed on the way are unlinked, since advanceTo no longer visits their slots.
+	private long nextSlot() {
+		if (size == 0) return Long.MAX_VALUE;
+
+		for (long slot = currentSlot; slot < currentSlot + buckets.length; slot++) {
+			int index = (int) (slot & mask);
+			for (Timeout timeout = buckets[index], next; timeout != null; timeout = next) {
+				next = timeout.next;
+				if (timeout.cancelled) {
+					remove(timeout, index);
+				} else if (timeout.slot <= slot) {
+					return slot;
+				}
+			}
+		}
+
+		long earliest = Long.MAX_VALUE;
+		for (int index = 0; index < buckets.length; index++) {
+			for (Timeout timeout = buckets[index], next; timeout != null; timeout = next) {
+				next = timeout.next;
+				if (timeout.cancelled) {
+					remove(timeout, index);
+				} else {
+					earliest = Math.min(earliest, timeout.slot);
+				}
+			}
+		}
+		return earliest;
+	}
+
+	// Visits pending timeouts bucket by bucket, each bucket head first. Adding them back in reverse
+	// order to an empty wheel at the same current time rebuilds identical buckets, so tasks due in
+	// the same slot still run in the same order.
+	public void forEach(Consumer<Timeout> action) {
+		for (int i = 0; i < buckets.length; i++) {
+			for (Timeout timeout = buckets[(int) ((currentSlot + i) & mask)]; timeout != null; timeout = timeout.next) {
+				if (!timeout.cancelled) action.accept(timeout);
+			}
+		}
+	}
+
+	public void clear() {
+		for (int i = 0; i < buckets.length; i++) {
+			for (Timeout timeout = buckets[i]; timeout != null; timeout = timeout.next) {
+				timeout.cancelled = true;
+			}
+			buckets[i] = null;
+		}
+		size = 0;
+	}
+
+	public long getCurrentTime() {
+		return currentSlot * resolution;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public static class Timeout {
+		private final Runnable task;
+		private final long period;
+		private long deadline;
+		private long slot;
+		private Timeout next;
+		private Timeout prev;
+		private volatile boolean cancelled = false;
+
+		private Timeout(Runnable task, long deadline, long period) {
+			this.task = task;
+			this.deadline = deadline;
+			this.period = period;
+		}
+
+		public void cancel() {
+			cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		public Runnable getTask() {
+			return task;
+		}
+
+		public long getDeadline() {
+			return deadline;
+		}
+
+		public long getPeriod() {
+			return period;
+		}
+	}
+}
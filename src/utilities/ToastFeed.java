@@ -0,0 +1,165 @@
+package utilities;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ToastFeed implements MapElement {
+	public static final Color WARNING = new Color(200, 60, 60);
+	public static final Color INFO = new Color(60, 130, 200);
+	private static final long LIFETIME_MILLIS = 4000;
+	private static final int MAX_TOASTS = 4;
+	private static final int MAX_LISTED_ITEMS = 3;
+	private static final int WIDTH = 300;
+	private static final int LINE_HEIGHT = 16;
+	private static final int PADDING = 8;
+	private static final int MARGIN = 10;
+	private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 12);
+	private static final Font TEXT_FONT = new Font("Arial", Font.PLAIN, 12);
+	private final MapCanvas canvas;
+	private final List<Toast> toasts = new ArrayList<>();
+
+	public ToastFeed(MapCanvas canvas) {
+		this.canvas = canvas;
+	}
+
+	public void post(String kind, String title, String text, Color color) {
+		post(kind, title, text, null, color);
+	}
+
+	// Events of the same kind fold into the toast already on screen, so a burst
+	// of fifty spreads is one toast listing the first few countries
+	public void post(String kind, String title, String text, String item, Color color) {
+		canvas.markDirty(getBounds());
+
+		long expiresAt = System.currentTimeMillis() + LIFETIME_MILLIS;
+		Toast toast = find(kind);
+		if (toast == null) {
+			if (toasts.size() == MAX_TOASTS) toasts.remove(0);
+			toast = new Toast(kind, title, text, color);
+			toasts.add(toast);
+		}
+		toast.count++;
+		if (item != null) toast.items.add(item);
+		toast.expiresAt = expiresAt;
+
+		canvas.markDirty(getBounds());
+	}
+
+	public void update() {
+		long now = System.currentTimeMillis();
+		Rectangle before = null;
+
+		Iterator<Toast> iterator = toasts.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().expiresAt <= now) {
+				if (before == null) before = getBounds();
+				iterator.remove();
+			}
+		}
+
+		if (before != null) canvas.markDirty(before);
+	}
+
+	public void clear() {
+		canvas.markDirty(getBounds());
+		toasts.clear();
+	}
+
+	private Toast find(String kind) {
+		for (Toast toast : toasts) {
+			if (toast.kind.equals(kind)) return toast;
+		}
+		return null;
+	}
+
+	@Override
+	public Rectangle getBounds() {
+		int height = 0;
+		for (Toast toast : toasts) {
+			height += getHeight(toast) + PADDING;
+		}
+		return new Rectangle(canvas.getWidth() - WIDTH - MARGIN, MARGIN, WIDTH, height);
+	}
+
+	@Override
+	public void paint(Graphics2D g2d) {
+		int x = canvas.getWidth() - WIDTH - MARGIN;
+		int y = MARGIN;
+
+		for (Toast toast : toasts) {
+			List<String> lines = wrap(toast.getText());
+			int height = getHeight(toast);
+			g2d.setColor(new Color(30, 30, 30, 220));
+			g2d.fillRoundRect(x, y, WIDTH, height, 10, 10);
+			g2d.setColor(toast.color);
+			g2d.fillRect(x, y + 4, 4, height - 8);
+
+			g2d.setColor(Color.WHITE);
+			g2d.setFont(TITLE_FONT);
+			String title = toast.count > 1 && toast.items.isEmpty() ? toast.title + " (x" + toast.count + ")" : toast.title;
+			g2d.drawString(title, x + PADDING + 4, y + PADDING + 11);
+
+			g2d.setFont(TEXT_FONT);
+			for (int i = 0; i < lines.size(); i++) {
+				g2d.drawString(lines.get(i), x + PADDING + 4, y + PADDING + 11 + LINE_HEIGHT * (i + 1));
+			}
+
+			y += height + PADDING;
+		}
+	}
+
+	private int getHeight(Toast toast) {
+		return PADDING * 2 + LINE_HEIGHT * (1 + wrap(toast.getText()).size());
+	}
+
+	private List<String> wrap(String text) {
+		FontMetrics metrics = canvas.getFontMetrics(TEXT_FONT);
+		int maxWidth = WIDTH - PADDING * 2 - 4;
+		List<String> lines = new ArrayList<>();
+		StringBuilder line = new StringBuilder();
+
+		for (String word : text.split(" ")) {
+			if (line.length() > 0 && metrics.stringWidth(line + " " + word) > maxWidth) {
+				lines.add(line.toString());
+				line.setLength(0);
+			}
+			if (line.length() > 0) line.append(' ');
+			line.append(word);
+		}
+		lines.add(line.toString());
+		return lines;
+	}
+
+	private static class Toast {
+		private final String kind;
+		private final String title;
+		private final String text;
+		private final Color color;
+		private final Set<String> items = new LinkedHashSet<>();
+		private int count = 0;
+		private long expiresAt;
+
+		private Toast(String kind, String title, String text, Color color) {
+			this.kind = kind;
+			this.title = title;
+			this.text = text;
+			this.color = color;
+		}
+
+		private String getText() {
+			if (items.isEmpty()) return text;
+
+			List<String> listed = new ArrayList<>(MAX_LISTED_ITEMS);
+			for (String item : items) {
+				if (listed.size() == MAX_LISTED_ITEMS) break;
+				listed.add(item);
+			}
+			String more = items.size() > MAX_LISTED_ITEMS ? " and " + (items.size() - MAX_LISTED_ITEMS) + " more" : "";
+			return text + " " + String.join(", ", listed) + more;
+		}
+	}
+}
@@ -1,232 +1,94 @@
 package utilities;
 
-import windows.GameWindow;
+import simulation.Route;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
 
-public class Transport {
-	private final String type; // "Airline", "Ship", "Train"
+public class Transport implements MapElement {
+	private static final Metrics.Counter STARTED = Metrics.getInstance().counter("transports.started");
+	private static final Metrics.Counter STOPPED = Metrics.getInstance().counter("transports.stopped");
+
+	static {
+		Metrics.getInstance().gauge(MetricsOverlay.TRANSPORTS_IN_FLIGHT, () -> STARTED.get() - STOPPED.get());
+	}
+
+	private final Route route;
 	private final Country origin;
 	private final Country destination;
-	private final JLabel transportIcon;
-	private final JPanel mapPanel;
-	private final ImageIcon normalIcon;
-	private final ImageIcon infectedIcon;
-	private final ImageIcon vaccineIcon;
-	private static final int ICON_SIZE = 30;
-	private Timer animationTimer;
-	private int totalSteps;
-	private int currentStep;
-	private double stepX, stepY;
-	private static double sanitationEffect = 1.0;
-	private static boolean infectionFreeZones = false;
-	private static boolean rapidTestingEnabled = false;
-	private static boolean vaccinePriority = false;
-
-	public Transport(String type, Country origin, Country destination, JPanel mapPanel) {
-		this.type = type;
+	private final MapCanvas canvas;
+	private static final int ICON_SIZE = SpriteAtlas.SPRITE_SIZE;
+	private ImageIcon icon;
+	private int x;
+	private int y;
+	private long departureMillis;
+	private long arrivalMillis;
+
+	public Transport(Route route, Country origin, Country destination, MapCanvas canvas) {
+		this.route = route;
 		this.origin = origin;
 		this.destination = destination;
-		this.mapPanel = mapPanel;
-
-		// Load and scale the original icon
-		normalIcon = scaleIcon(new ImageIcon("images/" + type.toLowerCase() + ".png"));
-		infectedIcon = scaleIcon(new ImageIcon("images/" + type.toLowerCase() + "_infected.png"));
-		vaccineIcon = scaleIcon(new ImageIcon("images/" + type.toLowerCase() + "_vaccine.png"));
-
-		transportIcon = new JLabel(normalIcon);
-		transportIcon.setBounds(origin.getX(), origin.getY(), ICON_SIZE, ICON_SIZE);
-		transportIcon.setVisible(false);
-		mapPanel.add(transportIcon);
-		mapPanel.revalidate();
-		mapPanel.repaint();
-	}
-
-	private ImageIcon scaleIcon(ImageIcon originalIcon) {
-		Image scaledImage = originalIcon.getImage().getScaledInstance(Transport.ICON_SIZE, Transport.ICON_SIZE, Image.SCALE_SMOOTH);
-		return new ImageIcon(scaledImage);
-	}
-
-	private ImageIcon rotateIcon(ImageIcon icon, double angle) {
-		Image originalImage = icon.getImage();
-		int w = originalImage.getWidth(null);
-		int h = originalImage.getHeight(null);
-
-		BufferedImage rotatedImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g2d = rotatedImage.createGraphics();
-
-		AffineTransform transform = new AffineTransform();
-		transform.translate(w / 2.0, h / 2.0);
-		transform.rotate(angle);
-		transform.translate(-w / 2.0, -h / 2.0);
-
-		g2d.setTransform(transform);
-		g2d.drawImage(originalImage, 0, 0, null);
-		g2d.dispose();
-
-		return new ImageIcon(rotatedImage);
+		this.canvas = canvas;
+		this.x = origin.getX();
+		this.y = origin.getY();
 	}
 
-	public void startTransport(boolean forVaccine) {
-		int dx = destination.getX() - origin.getX();
-		int dy = destination.getY() - origin.getY();
-		double distance = Math.sqrt(dx * dx + dy * dy);
-
-		totalSteps = (int) (distance * 2);
-		currentStep = 0;
-
-		stepX = (double) dx / totalSteps;
-		stepY = (double) dy / totalSteps;
-
-		double infectionProbability = (double) origin.getInfectedPopulation() / origin.getNormalPopulation() * sanitationEffect;;
-		boolean isInfected = Math.random() < infectionProbability;
-
-		double angle = Math.atan2(dy, dx);
-		ImageIcon icon = forVaccine ? vaccineIcon : (isInfected ? infectedIcon : normalIcon);
-
-		transportIcon.setIcon(rotateIcon(icon, angle));
-		transportIcon.setLocation(origin.getX(), origin.getY());
-		transportIcon.setVisible(true);
-
-		animationTimer = new Timer(10, e -> animateTransport(isInfected, forVaccine));
-		animationTimer.start();
-	}
-	private void spreadInfection() {
-		if (origin.isInfected() && !destination.isInfected()) {
-			destination.setInfected(true);
-			destination.updateInfection();
-
-			JOptionPane.showMessageDialog(
-					null,
-					"infection has spread to " + destination.getName(),
-					"Infection Update",
-					JOptionPane.WARNING_MESSAGE
-			);
-		}
+	@Override
+	public Rectangle getBounds() {
+		return new Rectangle(x, y, ICON_SIZE, ICON_SIZE);
 	}
 
-	public void spreadVaccine() {
-		if (!destination.isVaccinated()) {
-			destination.setVaccinated(true);
-			destination.updateVaccination();
-
-			JOptionPane.showMessageDialog(
-					null,
-					"Vaccine has spread to " + destination.getName(),
-					"Vaccine Update",
-					JOptionPane.INFORMATION_MESSAGE
-			);
+	@Override
+	public void paint(Graphics2D g2d) {
+		if (icon != null) {
+			icon.paintIcon(null, g2d, x, y);
 		}
 	}
 
-	private void animateTransport(boolean isInfected, boolean forVaccine) {
-		currentStep++;
-		int newX = (int) (origin.getX() + stepX * currentStep);
-		int newY = (int) (origin.getY() + stepY * currentStep);
-		transportIcon.setLocation(newX, newY);
-
-		mapPanel.revalidate();
-		mapPanel.repaint();
+	private void setLocation(int newX, int newY) {
+		if (newX == x && newY == y) return;
 
-		if (currentStep >= totalSteps) {
-			stopAnimation(isInfected, forVaccine);
-		}
+		canvas.markDirty(getBounds());
+		x = newX;
+		y = newY;
+		canvas.markDirty(getBounds());
 	}
 
-	public boolean isRouteOperational() {
-		// infectionFreeZones update
-		if (infectionFreeZones && !origin.isInfected() && !destination.isInfected()) return true;
+	public void startTransport(boolean isInfected, boolean forVaccine, long departureMillis, long arrivalMillis) {
+		this.departureMillis = departureMillis;
+		this.arrivalMillis = Math.max(arrivalMillis, departureMillis + 1);
 
-		// Global Awareness Restriction
-		if (GameWindow.getGlobalAwareness() >= 80 && !vaccinePriority) return false;
-
-		if (vaccinePriority) return true;
-
-		double originInfection = (double) origin.getInfectedPopulation() / origin.getNormalPopulation();
-		double destinationInfection = (double) destination.getInfectedPopulation() / destination.getNormalPopulation();
-
-		// Infection Level Restriction with Rapid Testing
-		if (type.equals("Airline") && (originInfection > 0.2 || destinationInfection > 0.2)) {
-			if (rapidTestingEnabled) {
-				return originInfection <= 0.25 && destinationInfection <= 0.25; // Relaxed condition for reopening
-			}
-			return false;
-		}
-
-		// Population Density Restriction
-		if (type.equals("Train") && (origin.getPopulationDensity() > 700 || destination.getPopulationDensity() > 700)) return false;
-
-		// Proximity Restriction
-		if (type.equals("Bus") && !origin.getContinent().equals(destination.getContinent())) return false;
+		int dx = destination.getX() - origin.getX();
+		int dy = destination.getY() - origin.getY();
+		double angle = Math.atan2(dy, dx);
+		int state = forVaccine ? SpriteAtlas.VACCINE : (isInfected ? SpriteAtlas.INFECTED : SpriteAtlas.NORMAL);
 
-		return true;
+		icon = SpriteAtlas.getInstance().getSprite(route.getMode(), state, angle);
+		setLocation(origin.getX(), origin.getY());
+		canvas.addVehicle(this);
+		STARTED.increment();
 	}
 
-	private void stopAnimation(boolean isInfected, boolean forVaccine) {
-		if (animationTimer != null) {
-			animationTimer.stop();
-			animationTimer = null;
-		}
+	// Positions come from the game clock rather than a step count, so dropped
+	// frames or a busy EDT never stretch the trip; returns false once landed
+	public boolean advance(long gameMillis) {
+		double progress = (double) (gameMillis - departureMillis) / (arrivalMillis - departureMillis);
+		progress = Math.max(0, Math.min(1, progress));
 
-		transportIcon.setVisible(false);
-		transportIcon.setLocation(origin.getX(), origin.getY());
-		mapPanel.revalidate();
-		mapPanel.repaint();
+		int newX = (int) (origin.getX() + (destination.getX() - origin.getX()) * progress);
+		int newY = (int) (origin.getY() + (destination.getY() - origin.getY()) * progress);
+		setLocation(newX, newY);
 
-		if (forVaccine) {
-			spreadVaccine();
-		} else if (isInfected) {
-			spreadInfection();
-		}
+		return progress < 1;
 	}
 
 	public void stopAnimationManually() {
-		if (animationTimer != null) {
-			animationTimer.stop();
-			animationTimer = null;
-		}
-
-		transportIcon.setVisible(false);
-		transportIcon.setLocation(origin.getX(), origin.getY());
-		mapPanel.revalidate();
-		mapPanel.repaint();
-	}
-
-	public void updateRoute(Point originPoint, Point destinationPoint) {
-		// Update the transport icon's position to match the new origin
-		transportIcon.setLocation(originPoint.x, originPoint.y);
-
-		// Recalculate the movement steps
-		int dx = destinationPoint.x - originPoint.x;
-		int dy = destinationPoint.y - originPoint.y;
-		double distance = Math.sqrt(dx * dx + dy * dy);
-
-		totalSteps = (int) (distance * 2); // Adjust the step count proportionally
-		stepX = (double) dx / totalSteps;
-		stepY = (double) dy / totalSteps;
-
-		// Update the display of the transport icon if necessary
-		mapPanel.revalidate();
-		mapPanel.repaint();
-	}
-
-	public static void setSanitationEffect(double effect) {
-		sanitationEffect = effect;
-	}
-
-	public static void setRapidTesting(boolean enabled) {
-		rapidTestingEnabled = enabled;
-	}
-
-	public static void setVaccinePriority(boolean enabled) {
-		vaccinePriority = enabled;
+		canvas.removeVehicle(this);
+		STOPPED.increment();
 	}
 
-	public static void setInfectionFreeZones(boolean enabled) {
-		infectionFreeZones = enabled;
+	public Route getRoute() {
+		return route;
 	}
 
 	public Country getOrigin() {
@@ -236,4 +98,4 @@ public class Transport {
 	public Country getDestination() {
 		return destination;
 	}
-}
\ No newline at end of file
+}
@@ -30,6 +30,6 @@ public class Upgrade {
 	}
 
 	public interface UpgradeEffect {
-		void apply();
+		String apply();
 	}
 }
@@ -0,0 +1,39 @@
+package utilities;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Background threads for files the game must not lose. System.exit, which EXIT_ON_CLOSE also
+// calls, does not wait for any thread, daemon or not; a shutdown hook finishes whatever was
+// queued before the exit instead. Meant for static fields, since each writer keeps its hook.
+final class Writers {
+	// Long enough for a compaction or a large save, short enough that a stuck disk cannot hang exit
+	private static final long DRAIN_SECONDS = 5;
+
+	private Writers() {
+	}
+
+	// One thread, started on demand and gone after a second of idling
+	static ExecutorService newWriter(String name) {
+		ExecutorService writer = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+			Thread thread = new Thread(task, name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> drain(writer), name + "-exit"));
+		return writer;
+	}
+
+	private static void drain(ExecutorService writer) {
+		writer.shutdown();
+		try {
+			if (!writer.awaitTermination(DRAIN_SECONDS, TimeUnit.SECONDS)) {
+				System.err.println("Gave up waiting for background writes at exit");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
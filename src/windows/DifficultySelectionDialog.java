@@ -1,5 +1,7 @@
 package windows;
 
+import utilities.Startup;
+
 import javax.swing.*;
 import java.awt.*;
 
@@ -60,7 +62,7 @@ public class DifficultySelectionDialog extends JDialog {
 
 	private void startGame(String difficulty) {
 		dispose();
-		new GameWindow(difficulty);
+		GameWindow.open(getOwner(), Startup.getInstance().newGame(difficulty));
 	}
 
 	private void goBackToMainMenu() {
@@ -1,5 +1,12 @@
 package windows;
 
+import simulation.CountryState;
+import simulation.GameEngine;
+import simulation.GameView;
+import simulation.InputLog;
+import simulation.Pickup;
+import simulation.Route;
+import simulation.Trip;
 import utilities.*;
 
 import javax.swing.*;
@@ -8,44 +15,83 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// The engine belongs to the timer thread: the EDT changes it only by posting commands to
+// timerManager, and reads it only through the GameView published after each tick and command.
 public class GameWindow extends JFrame {
+	private static final int FRAME_INTERVAL_MS = 33;
+	private static final int AUTOSAVE_TICKS = 30;
+	// Player actions of the latest new game, for --replay
+	private static final Path SESSION_LOG_FILE = Paths.get("session.log");
+	private final GameEngine engine;
 	private final List<Country> countries;
-	private List<Transport> transports;
-	private Thread transportThread;
-	private final List<Upgrade> upgrades;
-	private final List<JButton> activeIcons;
-	private final JPanel mapPanel;
-	private final JLayeredPane layeredPane;
+	// Sprites exist only while a vehicle is in flight, keyed by route id
+	private final Map<Integer, Transport> activeTransports = new HashMap<>();
+	private final MapCanvas mapCanvas;
 	private final JLabel scoreLabel;
 	private final JProgressBar vaccineProgressBar;
 	private final JLabel timerLabel;
 	private final GameTimerManager timerManager;
-	private int score = 0;
-	private int points = 0;
+	private final Timer frameTimer;
+	// Produced on the timer thread, consumed by the frame timer on the EDT
+	private final SpscQueue<Runnable> engineEvents = new SpscQueue<>();
+	private final LongSupplier pendingEventsGauge = engineEvents::size;
+	private final ToastFeed toasts;
+	private final MetricsOverlay metricsOverlay;
+	private final Metrics.Histogram tickTimes = Metrics.getInstance().histogram(MetricsOverlay.TICK);
+	private final Metrics.Histogram frameTimes = Metrics.getInstance().histogram(MetricsOverlay.FRAME);
+	private final Metrics.Histogram edtLag = Metrics.getInstance().histogram(MetricsOverlay.EDT_LAG);
+	private final Metrics.Counter pickupsSpawned = Metrics.getInstance().counter("pickups.spawned");
+	private final Metrics.Counter pickupsCollected = Metrics.getInstance().counter("pickups.collected");
+	private final Metrics.Counter pickupsExpired = Metrics.getInstance().counter("pickups.expired");
+	private long lastFrameNanos = 0;
+	private final AutoSaver autoSaver = new AutoSaver();
+	private InputLog.Recorder sessionLog;
+	// Replaced, never changed, by the timer thread; the EDT renders whichever is latest
+	private volatile GameView view;
+	private GameView renderedView;
 	private final String difficulty;
-	private double infectionRate;
-	private static int globalAwareness = 0;
-	private int laboratoryCount = 0;
-	private boolean isInfectionStarted = false;
-	private boolean vaccineDistribution = false;
-
-	public GameWindow(String difficulty) {
-		this.difficulty = difficulty;
-
-		switch (difficulty) {
-			case "Easy":
-				infectionRate = 1;
-				break;
-			case "Medium":
-				infectionRate = 1.1;
-				break;
-			case "Hard":
-				infectionRate = 1.2;
-				break;
-		}
+	private boolean gameEnded = false;
+	private long gameClockOriginNanos;
+
+	// Opens the window once the engine has been built off the EDT, keeping the parent responsive meanwhile
+	public static void open(Component parent, CompletableFuture<GameEngine> loading) {
+		long requestedNanos = System.nanoTime();
+		parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+		loading.whenComplete((engine, error) -> SwingUtilities.invokeLater(() -> {
+			parent.setCursor(Cursor.getDefaultCursor());
+			if (error != null) {
+				Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+				JOptionPane.showMessageDialog(parent, "The game could not be started:\n" + cause.getMessage(),
+						"AntiPlague", JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+
+			GameWindow window = new GameWindow(engine);
+			window.mapCanvas.setFirstPaintHandler(() -> Startup.getInstance().mapShown(requestedNanos));
+		}));
+	}
+
+	// Also used to continue a saved game, in which case the infection is already under way
+	public GameWindow(GameEngine engine) {
+		this.difficulty = engine.getDifficulty();
+		this.engine = engine;
+		this.engine.setListener(new EngineListener());
+		// No tick has run on the timer thread yet, so the EDT may still read the engine here
+		this.view = engine.view();
 
 		setTitle("AntiPlague Game - " + difficulty + " Mode");
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -54,6 +100,7 @@ public class GameWindow extends JFrame {
 		setResizable(false);
 
 		timerManager = new GameTimerManager();
+		frameTimer = new Timer(FRAME_INTERVAL_MS, e -> renderFrame());
 
 		JPanel panel = new JPanel(new BorderLayout());
 
@@ -79,20 +126,32 @@ public class GameWindow extends JFrame {
 
 		panel.add(topPanel, BorderLayout.NORTH);
 
-		mapPanel = new JPanel(null);
-		layeredPane = new JLayeredPane();
-		layeredPane.setLayout(null);
-		layeredPane.setBounds(0, 0, 800, 500);
-		mapPanel.add(layeredPane);
-		panel.add(mapPanel, BorderLayout.CENTER);
+		mapCanvas = new MapCanvas();
+		mapCanvas.setPickupHandler(this::collectPointIcon);
+		toasts = new ToastFeed(mapCanvas);
+		mapCanvas.addOverlay(toasts);
+		metricsOverlay = new MetricsOverlay(mapCanvas);
+		mapCanvas.addOverlay(metricsOverlay);
+		Metrics.getInstance().gauge(MetricsOverlay.PENDING_EDT_EVENTS, pendingEventsGauge);
+		panel.add(mapCanvas, BorderLayout.CENTER);
 
-		upgrades = initializeUpgrades();
-		countries = initializeCountries(mapPanel);
-		activeIcons = new ArrayList<>();
+		countries = initializeCountries();
 
-		promptForFirstInfectedCountry();
+		if (engine.isInfectionStarted()) {
+			SwingUtilities.invokeLater(this::resumeGame);
+		} else {
+			openSessionLog();
+			promptForFirstInfectedCountry();
+		}
 
 		JPanel controlPanel = new JPanel();
+		JButton pauseButton = new JButton("Pause");
+		pauseButton.addActionListener(e -> togglePause(pauseButton));
+		controlPanel.add(pauseButton);
+		JComboBox<GameSpeed> speedBox = new JComboBox<>(GameSpeed.values());
+		speedBox.setFocusable(false);
+		speedBox.addActionListener(e -> timerManager.setTimeScale(((GameSpeed) speedBox.getSelectedItem()).getTimeScale()));
+		controlPanel.add(speedBox);
 		JButton quitButton = new JButton("Quit");
 		quitButton.addActionListener(e -> quitGame());
 		controlPanel.add(quitButton);
@@ -105,16 +164,7 @@ public class GameWindow extends JFrame {
 		addComponentListener(new ComponentAdapter() {
 			@Override
 			public void componentResized(ComponentEvent e) {
-				int newWidth = mapPanel.getWidth();
-				int newHeight = mapPanel.getHeight();
-
-				layeredPane.setBounds(0, 0, newWidth, newHeight);
-
-				mapPanel.revalidate();
-
-				if (transports != null) {
-					adjustComponentSizes();
-				}
+				adjustComponentSizes();
 			}
 		});
 
@@ -124,8 +174,8 @@ public class GameWindow extends JFrame {
 
 	private void adjustComponentSizes() {
 		SwingUtilities.invokeLater(() -> {
-			int newWidth = layeredPane.getWidth();
-			int newHeight = layeredPane.getHeight();
+			int newWidth = mapCanvas.getWidth();
+			int newHeight = mapCanvas.getHeight();
 
 			double widthScale = (double) newWidth / 800;
 			double heightScale = (double) newHeight / 500;
@@ -136,158 +186,46 @@ public class GameWindow extends JFrame {
 				country.setPosition(scaledX, scaledY);
 			}
 
-			for (JButton icon : activeIcons) {
-				Country country = (Country) icon.getClientProperty("country");
-				int offsetX = (int) icon.getClientProperty("offsetX");
-				int offsetY = (int) icon.getClientProperty("offsetY");
-
-				int scaledX = (int) (country.getOriginalX() * widthScale) + offsetX;
-				int scaledY = (int) (country.getOriginalY() * heightScale) + offsetY;
-
-				icon.setBounds(scaledX, scaledY, icon.getWidth(), icon.getHeight());
-			}
-
-			for (Transport transport : transports) {
-				Point originPoint = transport.getOrigin().getPosition();
-				Point destinationPoint = transport.getDestination().getPosition();
-				transport.updateRoute(originPoint, destinationPoint);
+			for (PickupMarker marker : mapCanvas.getPickups()) {
+				marker.updatePosition();
 			}
 
-			layeredPane.repaint();
+			advanceVehicles();
+			mapCanvas.repaint();
 		});
 	}
 
-	private List<Upgrade> initializeUpgrades() {
-		List<Upgrade> upgradeList = new ArrayList<>();
-
-		upgradeList.add(new Upgrade("Vaccine Research", 10, "Adds +5% to vaccine development.", () -> {
-			int currentProgress = vaccineProgressBar.getValue();
-			vaccineProgressBar.setValue(Math.min(currentProgress + 5, 100));
-			JOptionPane.showMessageDialog(this, "Vaccine research progressed by +5%.");
-		}));
-
-		upgradeList.add(new Upgrade("Build Laboratory", 25, "Adds a laboratory that increases vaccine progress over time.", () -> {
-			laboratoryCount++;
-			JOptionPane.showMessageDialog(this, "Laboratory built! Vaccine progress will now increase over time.");
-		}));
-
-		upgradeList.add(new Upgrade("Vaccine Distribution", 40, "Enable vaccine distribution via transport.", () -> {
-			vaccineDistribution = true;
-			JOptionPane.showMessageDialog(this, "Vaccine distribution via transport enabled.");
-		}));
-
-		upgradeList.add(new Upgrade("Cancel Mutation", 30, "Decreases the infection rate by 0.03.", () -> {
-			if (infectionRate > 0.5) {
-				infectionRate -= 0.3;
-				for (Country country : countries) country.setInfectionRate(infectionRate);
-				JOptionPane.showMessageDialog(this, "Mutation canceled! Infection rate decreased by 1%.",
-						"Upgrade Successful", JOptionPane.INFORMATION_MESSAGE);
-			} else {
-				JOptionPane.showMessageDialog(this, "Infection rate is already at the minimum!",
-						"Upgrade Failed", JOptionPane.WARNING_MESSAGE);
-			}
-		}));
-
-		upgradeList.add(new Upgrade("Sanitation Protocols", 50, "Reduce infection spread during transport by 50%.", () -> {
-			Transport.setSanitationEffect(0.5);
-			JOptionPane.showMessageDialog(this, "Sanitation Protocols Activated! Infection probability during transport reduced by 50%.");
-		}));
-
-		upgradeList.add(new Upgrade("Rapid Testing", 20, "Reopen transport routes faster after infection levels drop.", () -> {
-			Transport.setRapidTesting(true);
-			JOptionPane.showMessageDialog(this, "Rapid Testing Deployed! Transport routes will reopen faster after infection drops.");
-		}));
-
-		upgradeList.add(new Upgrade("Infection-Free Zones", 25, "Keep routes between infection-free countries open.", () -> {
-			Transport.setInfectionFreeZones(true);
-			JOptionPane.showMessageDialog(this, "Infection-Free Zone protocols established. Routes between infection-free countries will remain open.");
-		}));
-
-		upgradeList.add(new Upgrade("Vaccine Distribution Networks", 50, "Prioritize vaccine delivery routes.", () -> {
-			Transport.setVaccinePriority(true);
-			JOptionPane.showMessageDialog(this, "Vaccine Distribution Networks established. Vaccine delivery routes will be prioritized.");
-		}));
-
-		upgradeList.add(new Upgrade("Media Campaign", 20, "Delay route closures by calming public fears.", () -> {
-			GameWindow.adjustGlobalAwareness(-30);
-			JOptionPane.showMessageDialog(this, "Media Campaign launched. Public awareness lowered, delaying potential route closures.");
-		}));
-
-		return upgradeList;
-	}
-
-
 	private void openUpgradeStore() {
-		UpgradeStoreDialog store = new UpgradeStoreDialog(this, upgrades, points);
+		UpgradeStoreDialog store = new UpgradeStoreDialog(this, engine.getUpgrades(), view.getPoints());
+		store.setPurchaseHandler(upgrade -> timerManager.post(() -> {
+			String message = engine.purchaseUpgrade(upgrade);
+			record(InputLog.PURCHASE_UPGRADE, engine.getUpgrades().indexOf(upgrade));
+			publishView();
+			int remainingPoints = engine.getPoints();
+			SwingUtilities.invokeLater(() -> {
+				store.setPoints(remainingPoints);
+				if (message == null) {
+					toasts.post("upgrade-failed", "Upgrade Store", "Not enough points!", ToastFeed.WARNING);
+				} else {
+					toasts.post(message, upgrade.getName(), message, ToastFeed.INFO);
+				}
+			});
+		}));
 		store.setVisible(true);
-
-		points = store.getRemainingPoints();
 	}
 
-	private List<Country> initializeCountries(JPanel mapPanel) {
+	private List<Country> initializeCountries() {
 		List<Country> countryList = new ArrayList<>();
 
-		// Countries with their coordinates, continent assignments, infection rate, and population
-		Object[][] countryData = {
-				{"USA", 50, 100, "North America", 0.12, 331000000, 9833520.0},
-				{"Canada", 150, 50, "North America", 0.08, 38000000, 9984670.0},
-				{"Mexico", 90, 200, "North America", 0.09, 126000000, 1964375.0},
-				{"Brazil", 190, 300, "South America", 0.14, 213000000, 8515767.0},
-				{"UK", 450, 50, "Europe", 0.11, 68000000, 243610.0},
-				{"France", 490, 100, "Europe", 0.1, 65000000, 551695.0},
-				{"Germany", 550, 150, "Europe", 0.07, 83000000, 357022.0},
-				{"India", 640, 300, "Asia", 0.15, 1390000000, 3287263.0},
-				{"China", 680, 200, "Asia", 0.13, 1440000000, 9596961.0},
-				{"Australia", 710, 400, "Australia", 0.06, 26000000, 7692024.0}
-		};
-
-		for (Object[] data : countryData) {
-			String name = (String) data[0];
-			int x = (int) data[1];
-			int y = (int) data[2];
-			String continent = (String) data[3];
-			double infectionRate = (double) data[4] + this.infectionRate;
-			int population = (int) data[5];
-			double area = (double) data[6];
-
-			Country country = new Country(name, x, y, continent, infectionRate, population, area);
-			country.addToPanel(mapPanel);
+		for (CountryState state : engine.getCountries()) {
+			Country country = new Country(state, view);
+			country.addToCanvas(mapCanvas);
 			countryList.add(country);
 		}
 
 		return countryList;
 	}
 
-	private List<Transport> initializeTransports(JPanel mapPanel) {
-		List<Transport> transportList = new ArrayList<>();
-
-		for (int i = 0; i < countries.size(); i++) {
-			for (int j = 0; j < countries.size(); j++) {
-				if (i == j) continue;
-
-				Country origin = countries.get(i);
-				Country destination = countries.get(j);
-
-				// Plane: (A -> B or B -> A)
-				if (origin.getName().compareTo(destination.getName()) < 0) {
-					transportList.add(new Transport("Airline", origin, destination, mapPanel));
-
-					// Ship: (A -> B or B -> A)
-					if (!origin.getContinent().equals(destination.getContinent())) {
-						transportList.add(new Transport("Ship", origin, destination, mapPanel));
-					}
-				}
-
-				// Train: (A -> B and B -> A)
-				if (origin.getContinent().equals(destination.getContinent())) {
-					transportList.add(new Transport("Train", origin, destination, mapPanel));
-				}
-			}
-		}
-
-		return transportList;
-	}
-
 
 	private void promptForFirstInfectedCountry() {
 		SwingUtilities.invokeLater(() -> {
@@ -299,215 +237,219 @@ public class GameWindow extends JFrame {
 			);
 
 			for (Country country : countries) {
+				country.setSelectionHandler(this::selectFirstCountry);
 				country.setSelectable(true);
 			}
-			transportThread = new Thread(() -> transports = initializeTransports(mapPanel));
-			transportThread.start();
-
-			new Thread(() -> {
-				boolean countrySelected = false;
-				while (!countrySelected) {
-					for (Country country : countries) {
-						if (country.isInfected()) {
-							countrySelected = true;
-							break;
-						}
-					}
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-						return;
-					}
-				}
-
-				SwingUtilities.invokeLater(() -> {
-					for (Country country : countries) {
-						country.setSelectable(false);
-					}
-					isInfectionStarted = true;
-					startTimers();
-					JOptionPane.showMessageDialog(
-							this,
-							"The infection has started! Protect the world from further spread.",
-							"Game Start",
-							JOptionPane.INFORMATION_MESSAGE
-					);
-				});
-			}).start();
 		});
 	}
 
-	private void startTimers() {
-		Thread gameTimerTask = timerManager.scheduleAtFixedRate(() -> SwingUtilities.invokeLater(() -> {
-			updateGameLogic();
-			int elapsedTime = Integer.parseInt(timerLabel.getText().replace("Time: ", "").replace("s", "")) + 1;
-			timerLabel.setText("Time: " + elapsedTime + "s");
-		}), 0, 1000);
-
-		Thread infectionRateTask = timerManager.scheduleAtFixedRate(() -> {
-			infectionRate += 0.01;
-			for (Country country : countries) country.setInfectionRate(infectionRate);
-			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(
-					null,
-					"The virus has mutated! Infection rate increased.",
-					"Mutation Alert",
-					JOptionPane.WARNING_MESSAGE
-			));
-		}, 30000, 30000);
-
-		Thread labProgressTask = timerManager.scheduleAtFixedRate(() -> {
-			if (laboratoryCount > 0) {
-				SwingUtilities.invokeLater(() -> {
-					int currentProgress = vaccineProgressBar.getValue();
-					vaccineProgressBar.setValue(Math.min(currentProgress + laboratoryCount, 100));
-				});
-			}
-		}, 7000, 7000);
-
-		Thread iconSpawnerTask = timerManager.scheduleAtFixedRate(() -> {
-			if (isInfectionStarted && !countries.isEmpty()) {
-				Country randomCountry = countries.get((int) (Math.random() * countries.size()));
-				SwingUtilities.invokeLater(() -> spawnPointIcon(randomCountry));
-			}
-		}, 8000, 8000);
+	private void selectFirstCountry(Country selected) {
+		for (Country country : countries) {
+			country.setSelectable(false);
+		}
 
-		Thread randomTransportTask = timerManager.scheduleAtFixedRate(() -> {
-			if (!transports.isEmpty()) {
-				Transport randomTransport = transports.get((int) (Math.random() * transports.size()));
-				if (randomTransport.isRouteOperational()) {
-					randomTransport.startTransport(false);
-				}
-			}
-		}, 3000, 2000);
+		// Like every player action, applied and logged on the timer thread between two ticks
+		int countryId = selected.getState().getId();
+		timerManager.post(() -> {
+			engine.infectFirstCountry(countryId);
+			record(InputLog.SELECT_COUNTRY, countryId);
+			publishView();
+			SwingUtilities.invokeLater(() -> {
+				startTimers();
+				JOptionPane.showMessageDialog(
+						this,
+						"The infection has started! Protect the world from further spread.",
+						"Game Start",
+						JOptionPane.INFORMATION_MESSAGE
+				);
+			});
+		});
+	}
 
-		Thread vaccineTransportTask = timerManager.scheduleAtFixedRate(() -> {
-			if (!transports.isEmpty() && vaccineDistribution) {
-				Transport randomTransport = transports.get((int) (Math.random() * transports.size()));
-				if (randomTransport.isRouteOperational()) {
-					randomTransport.startTransport(true);
-				}
-			}
-		}, 7000, 7000);
+	private void openSessionLog() {
+		try {
+			sessionLog = new InputLog.Recorder(SESSION_LOG_FILE, engine);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
-	private void spawnPointIcon(Country country) {
-		JButton icon = new JButton();
-		int offsetX = (int) (Math.random() * 50 - 25);
-		int offsetY = (int) (Math.random() * 50 - 25);
-		int iconSize = 25;
-
-		int iconX = country.getX() + offsetX;
-		int iconY = country.getY() + offsetY;
-		icon.setBounds(iconX, iconY, iconSize, iconSize);
-
-		boolean isInfected = country.isInfected();
-		int pointsEarned = isInfected ? 5 : 10;
-		icon.setText("+" + pointsEarned);
-		icon.setBackground(isInfected ? Color.YELLOW : Color.BLUE);
-		icon.setForeground(isInfected ? Color.BLACK : Color.WHITE);
-		icon.setFont(new Font("Arial", Font.BOLD, 10));
-		icon.setOpaque(true);
-		icon.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-
-		layeredPane.add(icon, JLayeredPane.POPUP_LAYER);
-		layeredPane.revalidate();
-		layeredPane.repaint();
-		activeIcons.add(icon);
-
-		icon.addActionListener(e -> {
-			score += pointsEarned;
-			points += pointsEarned;
-			scoreLabel.setText("Score: " + score);
-			layeredPane.remove(icon);
-			layeredPane.revalidate();
-			layeredPane.repaint();
-			activeIcons.remove(icon);
-		});
+	// Timer thread only
+	private void record(byte kind, int argument) {
+		if (sessionLog == null) return;
+		try {
+			sessionLog.record(engine, kind, argument);
+		} catch (IOException e) {
+			e.printStackTrace();
+			sessionLog = null;
+		}
+	}
 
-		Timer removeTimer = new Timer(10000, ev -> {
-			layeredPane.remove(icon);
-			layeredPane.revalidate();
-			layeredPane.repaint();
-			activeIcons.remove(icon);
-		});
-		removeTimer.setRepeats(false);
-		removeTimer.start();
+	// Timer thread only
+	private void endSessionLog() {
+		if (sessionLog == null) return;
+		try {
+			sessionLog.end(engine);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		sessionLog = null;
+	}
 
-		icon.putClientProperty("country", country);
-		icon.putClientProperty("offsetX", offsetX);
-		icon.putClientProperty("offsetY", offsetY);
+	private void resumeGame() {
+		for (Pickup pickup : engine.getPickups()) {
+			spawnPointIcon(pickup);
+		}
+		// Copied first: once the timers start, the engine is the timer thread's
+		List<Trip> trips = new ArrayList<>(engine.getTrips());
+		startTimers();
+		for (Trip trip : trips) {
+			animateTrip(trip);
+		}
 	}
 
-	public static int getGlobalAwareness() {
-		return globalAwareness;
+	private void startTimers() {
+		// The simulation runs on the timer thread at the selected speed; the EDT only
+		// repaints on the frame timer, so fast-forwarding never floods the event queue
+		long playedMillis = view.getElapsedMillis();
+		TimingWheel.Timeout gameTimerTask = timerManager.scheduleAtFixedRate(() -> {
+			long tickStart = System.nanoTime();
+			GameEngine.Outcome outcome = engine.tick();
+			publishView();
+			tickTimes.recordSince(tickStart);
+			if (outcome != GameEngine.Outcome.RUNNING) {
+				timerManager.pause();
+				autoSaver.delete();
+				endSessionLog();
+				SwingUtilities.invokeLater(() -> endGame(outcome == GameEngine.Outcome.VICTORY));
+			} else if (engine.getElapsedTicks() % AUTOSAVE_TICKS == 0) {
+				// Copying the state here is cheap; the file is written on the autosave thread
+				autoSaver.submit(engine.snapshot());
+			}
+		}, 0, GameEngine.TICK_MILLIS);
+
+		// Each tick advances the engine by TICK_MILLIS before it runs its events, so game time
+		// leads the timer clock by one tick, plus whatever a resumed game had already played
+		gameClockOriginNanos = gameTimerTask.getDeadline()
+				- TimeUnit.MILLISECONDS.toNanos(GameEngine.TICK_MILLIS + playedMillis);
+		frameTimer.start();
 	}
 
-	public static void adjustGlobalAwareness(int delta) {
-		globalAwareness = Math.max(0, globalAwareness + delta);
+	// Timer thread only
+	private void publishView() {
+		view = engine.view();
 	}
 
-	private void updateGlobalAwareness() {
-		int totalInfected = 0;
-		int totalPopulation = 0;
+	private void animateTrip(Trip trip) {
+		// Trips that already landed while the frame was pending are not worth animating
+		if (trip.getArrivalMillis() <= view.getElapsedMillis()) return;
 
-		for (Country country : countries) {
-			totalInfected += country.getInfectedPopulation();
-			totalPopulation += country.getNormalPopulation();
-		}
+		Route route = trip.getRoute();
+		if (activeTransports.containsKey(route.getId())) return;
 
-		int newAwareness = (int) ((double) totalInfected / totalPopulation * 100);
-		adjustGlobalAwareness(newAwareness - globalAwareness);
+		Country origin = countries.get(route.getOrigin().getId());
+		Country destination = countries.get(route.getDestination().getId());
+		Transport transport = new Transport(route, origin, destination, mapCanvas);
+		activeTransports.put(route.getId(), transport);
+		transport.startTransport(trip.isInfected(), trip.isForVaccine(), trip.getDepartureMillis(), trip.getArrivalMillis());
 	}
 
-	private void updateGameLogic() {
-		for (Country country : countries) {
-			if (country.isInfected()) {
-				country.updateInfection();
-			}
-			if (country.isVaccinated()) {
-				country.updateVaccination();
+	private long gameTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(timerManager.elapsedNanos() - gameClockOriginNanos);
+	}
+
+	private void advanceVehicles() {
+		if (activeTransports.isEmpty()) return;
+
+		long now = gameTimeMillis();
+		Iterator<Transport> iterator = activeTransports.values().iterator();
+		while (iterator.hasNext()) {
+			Transport transport = iterator.next();
+			if (!transport.advance(now)) {
+				transport.stopAnimationManually();
+				iterator.remove();
 			}
 		}
+	}
 
-		updateGlobalAwareness();
-		isGameOver();
+	// Timer thread; runs on the EDT with the next frame
+	private void postToFrame(Runnable event) {
+		engineEvents.offer(event);
 	}
 
-	public void isGameOver() {
-		boolean allInfected = true;
-		boolean noInfectionsLeft = true;
+	private void renderFrame() {
+		long frameStart = System.nanoTime();
+		// How much later than its interval the frame timer fired: the time the EDT spent elsewhere
+		if (lastFrameNanos != 0) {
+			edtLag.record(frameStart - lastFrameNanos - TimeUnit.MILLISECONDS.toNanos(FRAME_INTERVAL_MS));
+		}
+		lastFrameNanos = frameStart;
 
-		for (Country country : countries) {
-			if (country.getInfectedPopulation() > 0) {
-				noInfectionsLeft = false;
-			}
-			if (!country.isAllInfected()) {
-				allInfected = false;
+		GameView latest = view;
+		if (latest != renderedView) {
+			renderedView = latest;
+			for (Country country : countries) {
+				country.update(latest);
 			}
+			timerLabel.setText("Time: " + latest.getElapsedTicks() + "s");
+			vaccineProgressBar.setValue(latest.getVaccineProgress());
+			scoreLabel.setText("Score: " + latest.getScore());
 		}
 
-		if (allInfected && isInfectionStarted) {
-			endGame(false);
-		} else if (noInfectionsLeft && isInfectionStarted) {
-			endGame(true);
+		Runnable event;
+		while ((event = engineEvents.poll()) != null) {
+			event.run();
 		}
+		advanceVehicles();
+		toasts.update();
+		metricsOverlay.update();
+		mapCanvas.flush();
+		frameTimes.recordSince(frameStart);
 	}
 
+	private void spawnPointIcon(Pickup pickup) {
+		Country country = countries.get(pickup.getCountry().getId());
+		mapCanvas.addPickup(new PickupMarker(pickup, country));
+		pickupsSpawned.increment();
+	}
+
+	private void collectPointIcon(PickupMarker marker) {
+		int pickupId = marker.getPickup().getId();
+		timerManager.post(() -> {
+			// The pickup may have expired on the simulation thread after the click
+			if (!engine.collectPickup(pickupId)) return;
+			pickupsCollected.increment();
+			record(InputLog.COLLECT_PICKUP, pickupId);
+			publishView();
+		});
+		mapCanvas.removePickup(marker);
+	}
+
+	private void removePointIcon(Pickup pickup) {
+		for (PickupMarker marker : mapCanvas.getPickups()) {
+			if (marker.getPickup() == pickup) {
+				mapCanvas.removePickup(marker);
+				pickupsExpired.increment();
+				return;
+			}
+		}
+	}
 
 	private void endGame(boolean isVictory) {
+		if (gameEnded) return;
+		gameEnded = true;
 		stopAllTimers();
-		for (Transport transport : transports) {
-			transport.stopAnimationManually();
-		}
+		renderFrame();
+		clearTransports();
 
 		if (isVictory) {
 			JOptionPane.showMessageDialog(this,
-					"Congratulations! You have eradicated the virus.\nYour Score: " + score,
+					"Congratulations! You have eradicated the virus.\nYour Score: " + view.getScore(),
 					"Victory", JOptionPane.INFORMATION_MESSAGE);
 		} else {
 			JOptionPane.showMessageDialog(this,
-					"Game Over! The entire world has been infected.\nYour Score: " + score,
+					"Game Over! " + Math.round(GameEngine.DEFEAT_SHARE * 100) + "% of the world's population has caught the virus."
+							+ "\nYour Score: " + view.getScore(),
 					"Defeat", JOptionPane.ERROR_MESSAGE);
 		}
 
@@ -515,9 +457,30 @@ public class GameWindow extends JFrame {
 		dispose();
 	}
 
+	private void togglePause(JButton pauseButton) {
+		if (timerManager.isPaused()) {
+			timerManager.resume();
+			pauseButton.setText("Pause");
+		} else {
+			timerManager.pause();
+			pauseButton.setText("Resume");
+		}
+	}
+
 	private void quitGame() {
-		stopAllTimers();
-		dispose();
+		// Saved on the timer thread so the snapshot falls between two ticks
+		timerManager.pause();
+		timerManager.post(() -> {
+			if (engine.isInfectionStarted() && engine.getOutcome() == GameEngine.Outcome.RUNNING) {
+				autoSaver.submit(engine.snapshot());
+			}
+			endSessionLog();
+			SwingUtilities.invokeLater(() -> {
+				stopAllTimers();
+				clearTransports();
+				dispose();
+			});
+		});
 	}
 
 	private void addKeyBindings(JPanel panel) {
@@ -529,11 +492,27 @@ public class GameWindow extends JFrame {
 				quitGame();
 			}
 		});
+
+		panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "toggleMetrics");
+		panel.getActionMap().put("toggleMetrics", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				metricsOverlay.setVisible(!metricsOverlay.isVisible());
+			}
+		});
 	}
 
 	private void stopAllTimers() {
 		timerManager.shutdown();
-		transportThread.interrupt();
+		frameTimer.stop();
+		Metrics.getInstance().removeGauge(MetricsOverlay.PENDING_EDT_EVENTS, pendingEventsGauge);
+	}
+
+	private void clearTransports() {
+		for (Transport transport : activeTransports.values()) {
+			transport.stopAnimationManually();
+		}
+		activeTransports.clear();
 	}
 
 	private void addScore() {
@@ -542,13 +521,51 @@ public class GameWindow extends JFrame {
 
 		if (dialog.isConfirmed()) {
 			String playerName = dialog.getPlayerName();
-			HighScoreManager.getInstance().addHighScore(playerName, score, difficulty);
-
-			JOptionPane.showMessageDialog(null,
-					"Score saved successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+			// The rank is known once the writer has added the score, which is after this window has gone
+			HighScoreManager.getInstance().addHighScore(playerName, view.getScore(), difficulty)
+					.thenAccept(rank -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+							"Score saved successfully!\nYou ranked #" + (rank + 1) + " on " + difficulty + ".",
+							"Success", JOptionPane.INFORMATION_MESSAGE)));
 		} else {
 			JOptionPane.showMessageDialog(null,
 					"Score not saved.", "Notice", JOptionPane.WARNING_MESSAGE);
 		}
 	}
+
+	private class EngineListener implements GameEngine.Listener {
+		// Called on the timer thread; everything is handed to the EDT through the next frame
+		@Override
+		public void onMutation() {
+			postToFrame(() -> toasts.post("mutation", "Mutation Alert",
+					"The virus has mutated! Infection rate increased.", ToastFeed.WARNING));
+		}
+
+		@Override
+		public void onTripStarted(Trip trip) {
+			postToFrame(() -> animateTrip(trip));
+		}
+
+		// Only the name is read on the EDT; the colour follows from the next view
+		@Override
+		public void onInfectionSpread(CountryState country) {
+			String name = country.getName();
+			postToFrame(() -> toasts.post("infection", "Infection Update", "Infection has spread to", name, ToastFeed.WARNING));
+		}
+
+		@Override
+		public void onVaccineSpread(CountryState country) {
+			String name = country.getName();
+			postToFrame(() -> toasts.post("vaccine", "Vaccine Update", "Vaccine has spread to", name, ToastFeed.INFO));
+		}
+
+		@Override
+		public void onPickupSpawned(Pickup pickup) {
+			postToFrame(() -> spawnPointIcon(pickup));
+		}
+
+		@Override
+		public void onPickupExpired(Pickup pickup) {
+			postToFrame(() -> removePointIcon(pickup));
+		}
+	}
 }
@@ -1,14 +1,20 @@
 package windows;
 
 import utilities.HighScoreManager;
+import utilities.Leaderboard;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HighScoresWindow extends JDialog {
+	private static final String ALL_DIFFICULTIES = "All";
 	private final JList<String> highScoreList;
+	private final JComboBox<String> difficultyBox;
 	private final HighScoreManager highScoreManager;
 	public HighScoresWindow(JFrame parent, HighScoreManager highScoreManager) {
 		super(parent, "High Scores", true);
@@ -19,12 +25,24 @@ public class HighScoresWindow extends JDialog {
 		JLabel title = new JLabel("High Scores", SwingConstants.CENTER);
 		title.setFont(new Font("Arial", Font.BOLD, 24));
 		title.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
-		add(title, BorderLayout.NORTH);
 
-		DefaultListModel<String> listModel = new DefaultListModel<>();
-		highScoreList = getHighScoreList(listModel);
+		difficultyBox = new JComboBox<>();
+		difficultyBox.addItem(ALL_DIFFICULTIES);
+		for (String difficulty : HighScoreManager.DIFFICULTIES) {
+			difficultyBox.addItem(difficulty);
+		}
+		difficultyBox.setFont(new Font("Arial", Font.PLAIN, 16));
+		difficultyBox.setFocusable(false);
+		difficultyBox.addActionListener(e -> refreshHighScores());
+
+		JPanel header = new JPanel(new BorderLayout());
+		header.add(title, BorderLayout.NORTH);
+		JPanel difficultyPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		difficultyPanel.add(difficultyBox);
+		header.add(difficultyPanel, BorderLayout.SOUTH);
+		add(header, BorderLayout.NORTH);
 
-		refreshHighScores();
+		highScoreList = getHighScoreList(leaderboardModel());
 
 		JScrollPane scrollPane = new JScrollPane(highScoreList);
 		scrollPane.setBorder(new EmptyBorder(0, 0, 0, 0));
@@ -40,13 +58,15 @@ public class HighScoresWindow extends JDialog {
 		closeButtonPanel.add(closeButton);
 		add(closeButtonPanel, BorderLayout.SOUTH);
 
-		setPreferredSize(new Dimension(400, 350));
+		setPreferredSize(new Dimension(400, 400));
 		pack();
 		setLocationRelativeTo(null);
 	}
 
-	private static JList<String> getHighScoreList(DefaultListModel<String> listModel) {
+	private static JList<String> getHighScoreList(ListModel<String> listModel) {
 		JList<String> highScoreList = new JList<>(listModel);
+		// Fixed cell sizes, so the list never renders every row just to measure itself
+		highScoreList.setPrototypeCellValue("0000000. Player Name - 0000000");
 		highScoreList.setSelectionModel(new DefaultListSelectionModel() {
 			@Override
 			public void setSelectionInterval(int index0, int index1) {}
@@ -69,12 +89,53 @@ public class HighScoresWindow extends JDialog {
 	}
 
 	public void refreshHighScores() {
-		DefaultListModel<String> model = new DefaultListModel<>();
-		List<HighScoreManager.HighScore> highScores = highScoreManager.getHighScores();
-		for (HighScoreManager.HighScore score : highScores) {
-			model.addElement(score.toString());
+		highScoreList.setModel(leaderboardModel());
+	}
+
+	// For the difficulty selected in the box
+	private LeaderboardModel leaderboardModel() {
+		String difficulty = (String) difficultyBox.getSelectedItem();
+		return new LeaderboardModel(highScoreManager.getLeaderboard(ALL_DIFFICULTIES.equals(difficulty) ? null : difficulty));
+	}
+
+	// Reads rows from the leaderboard a page at a time, as the list asks for them, and keeps only
+	// the pages seen most recently. The size is fixed when the model is made; scores recorded
+	// later show up on the next refresh.
+	private static class LeaderboardModel extends AbstractListModel<String> {
+		private static final int PAGE_SIZE = 50;
+		private static final int CACHED_PAGES = 16;
+		private final Leaderboard leaderboard;
+		private final int size;
+		private final Map<Integer, List<String>> pages = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<String>> eldest) {
+				return size() > CACHED_PAGES;
+			}
+		};
+
+		LeaderboardModel(Leaderboard leaderboard) {
+			this.leaderboard = leaderboard;
+			this.size = leaderboard.size();
+		}
+
+		@Override
+		public int getSize() {
+			return size;
+		}
+
+		@Override
+		public String getElementAt(int index) {
+			return pages.computeIfAbsent(index / PAGE_SIZE, this::loadPage).get(index % PAGE_SIZE);
+		}
+
+		private List<String> loadPage(int page) {
+			int from = page * PAGE_SIZE;
+			List<String> rows = new ArrayList<>(PAGE_SIZE);
+			for (HighScoreManager.HighScore score : leaderboard.getPage(from, Math.min(PAGE_SIZE, size - from))) {
+				rows.add((from + rows.size() + 1) + ". " + score);
+			}
+			return rows;
 		}
-		highScoreList.setModel(model);
 	}
 
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import java.util.List;
 public class UpgradeStoreDialog extends JDialog {
 	private int points;
 	private final JLabel pointsLabel;
+	private PurchaseHandler purchaseHandler;
 
 	public UpgradeStoreDialog(JFrame parent, List<Upgrade> upgrades, int points) {
 		super(parent, "Upgrade Store", true);
@@ -46,16 +47,27 @@ public class UpgradeStoreDialog extends JDialog {
 	}
 
 	private void purchaseUpgrade(Upgrade upgrade) {
-		if (points >= upgrade.getCost()) {
-			points -= upgrade.getCost();
-			pointsLabel.setText("Points: " + points);
-			upgrade.getEffect().apply();
-		} else {
+		if (points < upgrade.getCost()) {
 			JOptionPane.showMessageDialog(this, "Not enough points!", "Error", JOptionPane.ERROR_MESSAGE);
+		} else if (purchaseHandler != null) {
+			purchaseHandler.purchase(upgrade);
 		}
 	}
 
+	public void setPurchaseHandler(PurchaseHandler purchaseHandler) {
+		this.purchaseHandler = purchaseHandler;
+	}
+
+	public void setPoints(int points) {
+		this.points = points;
+		pointsLabel.setText("Points: " + points);
+	}
+
 	public int getRemainingPoints() {
 		return points;
 	}
+
+	public interface PurchaseHandler {
+		void purchase(Upgrade upgrade);
+	}
 }